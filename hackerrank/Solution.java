@@ -1,5 +1,7 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 import java.text.*;
 import java.math.*;
 import java.util.regex.*;
@@ -9,7 +11,463 @@ public class Solution {
  * Complete the function below.
  */
 
+    /*
+     * Length of the longest contiguous subarray of a whose sum is at most
+     * k, or 0 if there is none. Picks the O(n) two-pointer engine when a
+     * has no negative values and the O(n log n) prefix-sum engine
+     * otherwise. Sums are kept in longs, which n ints can't overflow; see
+     * maxLength(long[], long) for wider values.
+     */
     static int maxLength(int[] a, int k) {
+        for (int value : a) {
+            if (value < 0) {
+                return maxLengthPrefix(a, k);
+            }
+        }
+        return maxLengthWindow(a, k);
+    }
+
+    /*
+     * Two-pointer engine for arrays without negative values: growing the
+     * window can only raise its sum, so for each end the best start only
+     * ever moves right.
+     */
+    static int maxLengthWindow(int[] a, int k) {
+        long sum = 0;
+        int best = 0;
+        int start = 0;
+        for (int end = 0; end < a.length; end++) {
+            sum += a[end];
+            while (sum > k && start <= end) {
+                sum -= a[start++];
+            }
+            best = Math.max(best, end - start + 1);
+        }
+        return best;
+    }
+
+    /*
+     * Prefix-sum engine for any array. With p[i] the sum of the first i
+     * values, a[i..j) fits when p[i] >= p[j] - k, so for each j the best
+     * start is the first i whose p[i] reaches p[j] - k. Only a prefix sum
+     * higher than every one before it can be that first i, so those
+     * records form an increasing stack that is binary searched.
+     */
+    static int maxLengthPrefix(int[] a, int k) {
+        long[] records = new long[a.length + 1];
+        int[] recordIndex = new int[a.length + 1];
+        int top = 0;
+        records[top] = 0;
+        recordIndex[top++] = 0;
+        long prefix = 0;
+        int best = 0;
+        for (int j = 1; j <= a.length; j++) {
+            prefix += a[j - 1];
+            long need = prefix - k;
+            int lo = 0;
+            int hi = top;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (records[mid] >= need) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            if (lo < top) {
+                best = Math.max(best, j - recordIndex[lo]);
+            }
+            if (prefix > records[top - 1]) {
+                records[top] = prefix;
+                recordIndex[top++] = j;
+            }
+        }
+        return best;
+    }
+
+    // Smallest array maxLengthParallel splits into chunks.
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Smallest chunk maxLengthParallel hands to one task.
+    static final int MIN_CHUNK = 1 << 14;
+
+    /*
+     * maxLength on a fork/join pool, with the same answer as the
+     * sequential engines. It runs in the pool it is called from, or the
+     * common pool otherwise, and cuts the array into about four chunks per
+     * thread of that pool. Every pass over the array runs one task per
+     * chunk; only O(1) per chunk summaries are combined in between, in
+     * chunk order, so the result doesn't depend on scheduling or the
+     * number of chunks. Arrays under PARALLEL_THRESHOLD go to maxLength.
+     */
+    static int maxLengthParallel(int[] a, int k) {
+        if (a.length < PARALLEL_THRESHOLD) {
+            return maxLength(a, k);
+        }
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        int tasks = 4 * pool.getParallelism();
+        int chunk = Math.max(MIN_CHUNK, (a.length + tasks - 1) / tasks);
+        int chunks = (a.length + chunk - 1) / chunk;
+
+        // Pass 1: each chunk's sum, its highest running sum and whether it
+        // holds a negative value.
+        long[] sums = new long[chunks];
+        long[] highs = new long[chunks];
+        boolean negative = IntStream.range(0, chunks).parallel().map(c -> {
+            long sum = 0;
+            long high = Long.MIN_VALUE;
+            int negatives = 0;
+            for (int i = c * chunk, end = Math.min(i + chunk, a.length);
+                    i < end; i++) {
+                sum += a[i];
+                high = Math.max(high, sum);
+                negatives |= a[i];
+            }
+            sums[c] = sum;
+            highs[c] = high;
+            return negatives >>> 31;
+        }).sum() > 0;
+
+        // offsets[c] is the prefix sum where chunk c starts; ceilings[c]
+        // the highest prefix sum up to where it ends.
+        long[] offsets = new long[chunks + 1];
+        long[] ceilings = new long[chunks];
+        long ceiling = 0;
+        for (int c = 0; c < chunks; c++) {
+            offsets[c + 1] = offsets[c] + sums[c];
+            ceiling = Math.max(ceiling, offsets[c] + highs[c]);
+            ceilings[c] = ceiling;
+        }
+        return negative
+                ? prefixParallel(a, k, chunk, chunks, offsets, ceilings)
+                : windowParallel(a, k, chunk, chunks, offsets);
+    }
+
+    /*
+     * Two-pointer pass of maxLengthParallel for arrays without negative
+     * values. Each chunk runs the two pointers over its own ends, starting
+     * from the start the sequential scan would have reached: the first i
+     * with p[i] >= p[chunk start] - k. Prefix sums never decrease here, so
+     * that i is found by a binary search over the chunk offsets and a scan
+     * of one chunk.
+     */
+    private static int windowParallel(int[] a, int k, int chunk, int chunks,
+            long[] offsets) {
+        return IntStream.range(0, chunks).parallel().map(c -> {
+            int first = c * chunk;
+            long need = offsets[c] - k;
+            // Last chunk starting below need; the start is in it or at
+            // the start of the next.
+            int lo = 0;
+            int hi = c;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] < need) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int start = lo * chunk;
+            long prefix = offsets[lo];
+            while (start < first && prefix < need) {
+                prefix += a[start++];
+            }
+            long sum = offsets[c] - prefix;
+            int best = 0;
+            for (int end = first, last = Math.min(first + chunk, a.length);
+                    end < last; end++) {
+                sum += a[end];
+                while (sum > k && start <= end) {
+                    sum -= a[start++];
+                }
+                best = Math.max(best, end - start + 1);
+            }
+            return best;
+        }).max().getAsInt();
+    }
+
+    /*
+     * Prefix-sum pass of maxLengthParallel. The stack of prefix-sum
+     * records that maxLengthPrefix builds is split by chunk: chunk c holds
+     * the records that beat every prefix sum before the chunk. One pass
+     * builds each chunk's share, a second answers every end. An end looks
+     * in the earlier chunks when their ceiling reaches its need, binary
+     * searching first for the chunk and then inside its records, and in
+     * its own chunk's records so far otherwise.
+     */
+    private static int prefixParallel(int[] a, int k, int chunk, int chunks,
+            long[] offsets, long[] ceilings) {
+        long[][] recordSums = new long[chunks][];
+        int[][] recordIndexes = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            long floor = c == 0 ? 0 : ceilings[c - 1];
+            int first = c * chunk;
+            int last = Math.min(first + chunk, a.length);
+            long[] values = new long[last - first];
+            int[] indexes = new int[last - first];
+            int count = 0;
+            long prefix = offsets[c];
+            for (int i = first; i < last; i++) {
+                prefix += a[i];
+                if (prefix > floor) {
+                    floor = prefix;
+                    values[count] = prefix;
+                    indexes[count++] = i + 1;
+                }
+            }
+            recordSums[c] = Arrays.copyOf(values, count);
+            recordIndexes[c] = Arrays.copyOf(indexes, count);
+        });
+
+        return IntStream.range(0, chunks).parallel().map(c -> {
+            long floor = c == 0 ? 0 : ceilings[c - 1];
+            long[] own = recordSums[c];
+            int[] ownIndexes = recordIndexes[c];
+            int seen = 0;
+            int first = c * chunk;
+            long prefix = offsets[c];
+            int best = 0;
+            for (int j = first + 1, last = Math.min(first + chunk, a.length);
+                    j <= last; j++) {
+                prefix += a[j - 1];
+                long need = prefix - k;
+                int start = -1;
+                if (floor >= need) {
+                    start = firstBefore(c, need, ceilings, recordSums,
+                            recordIndexes);
+                } else {
+                    int r = firstAtLeast(own, seen, need);
+                    if (r < seen) {
+                        start = ownIndexes[r];
+                    }
+                }
+                if (start >= 0) {
+                    best = Math.max(best, j - start);
+                }
+                if (seen < own.length && ownIndexes[seen] == j) {
+                    seen++;
+                }
+            }
+            return best;
+        }).max().getAsInt();
+    }
+
+    /*
+     * Index of the first prefix sum before chunk c that is at least need,
+     * given that one exists.
+     */
+    private static int firstBefore(int c, long need, long[] ceilings,
+            long[][] recordSums, int[][] recordIndexes) {
+        if (need <= 0) {
+            // p[0] = 0 comes before everything.
+            return 0;
+        }
+        int lo = 0;
+        int hi = c - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ceilings[mid] >= need) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return recordIndexes[lo][firstAtLeast(recordSums[lo],
+                recordSums[lo].length, need)];
+    }
+
+    // First of the first count values that is at least need, or count.
+    private static int firstAtLeast(long[] values, int count, long need) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] >= need) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /*
+     * maxLength for long values and k. Long sums can overflow, so the
+     * engine is picked by what the values allow: the two-pointer engine
+     * never forms a sum above k, the prefix engine is used while every
+     * prefix sum fits in half a long, and anything wider gets 128-bit
+     * prefix sums. All of them stay in primitive arrays.
+     */
+    static int maxLength(long[] a, long k) {
+        boolean negative = false;
+        long maxAbs = 0;
+        for (long value : a) {
+            negative |= value < 0;
+            maxAbs = Math.max(maxAbs,
+                    value == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(value));
+        }
+        if (!negative) {
+            return maxLengthWindow(a, k);
+        }
+        if (maxAbs <= Long.MAX_VALUE / 2 / Math.max(1, a.length)) {
+            return maxLengthPrefix(a, k);
+        }
+        return maxLengthWide(a, k);
+    }
+
+    /*
+     * Two-pointer engine for long arrays without negative values. A value
+     * is only added once it is known to keep the sum within k, by
+     * comparing it with k - sum, so the sum never overflows.
+     */
+    static int maxLengthWindow(long[] a, long k) {
+        if (k < 0) {
+            return 0;
+        }
+        // The window is a[start..end) and 0 <= sum <= k.
+        long sum = 0;
+        int best = 0;
+        int start = 0;
+        for (int end = 0; end < a.length; end++) {
+            while (start < end && a[end] > k - sum) {
+                sum -= a[start++];
+            }
+            if (a[end] <= k - sum) {
+                sum += a[end];
+                best = Math.max(best, end - start + 1);
+            } else {
+                start = end + 1;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Prefix-sum engine for long arrays whose prefix sums all fit in half
+     * a long, so p[i] - p[j] can't overflow. p[j] - k still can, for an
+     * extreme k, and is clamped: a clamped need is beyond every prefix
+     * sum either way.
+     */
+    static int maxLengthPrefix(long[] a, long k) {
+        long[] records = new long[a.length + 1];
+        int[] recordIndex = new int[a.length + 1];
+        int top = 0;
+        records[top] = 0;
+        recordIndex[top++] = 0;
+        long prefix = 0;
+        int best = 0;
+        for (int j = 1; j <= a.length; j++) {
+            prefix += a[j - 1];
+            long need = prefix - k;
+            if (((prefix ^ k) & (prefix ^ need)) < 0) {
+                need = k < 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            }
+            int lo = 0;
+            int hi = top;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (records[mid] >= need) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            if (lo < top) {
+                best = Math.max(best, j - recordIndex[lo]);
+            }
+            if (prefix > records[top - 1]) {
+                records[top] = prefix;
+                recordIndex[top++] = j;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Prefix-sum engine with 128-bit prefix sums, each split into a signed
+     * high long and an unsigned low long, for values too wide for
+     * maxLengthPrefix. n longs sum to less than 2^95, so 128 bits never
+     * overflow.
+     */
+    static int maxLengthWide(long[] a, long k) {
+        long[] recordHigh = new long[a.length + 1];
+        long[] recordLow = new long[a.length + 1];
+        int[] recordIndex = new int[a.length + 1];
+        int top = 0;
+        recordIndex[top++] = 0;
+        long high = 0;
+        long low = 0;
+        long kHigh = k >> 63;
+        int best = 0;
+        for (int j = 1; j <= a.length; j++) {
+            long value = a[j - 1];
+            long sum = low + value;
+            high += (value >> 63)
+                    + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+            low = sum;
+            // need = prefix - k
+            long needLow = low - k;
+            long needHigh = high - kHigh
+                    - (Long.compareUnsigned(low, k) < 0 ? 1 : 0);
+            int lo = 0;
+            int hi = top;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareWide(recordHigh[mid], recordLow[mid], needHigh,
+                        needLow) >= 0) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            if (lo < top) {
+                best = Math.max(best, j - recordIndex[lo]);
+            }
+            if (compareWide(high, low, recordHigh[top - 1],
+                    recordLow[top - 1]) > 0) {
+                recordHigh[top] = high;
+                recordLow[top] = low;
+                recordIndex[top++] = j;
+            }
+        }
+        return best;
+    }
+
+    // Compares two 128-bit numbers given as high and low longs.
+    private static int compareWide(long aHigh, long aLow, long bHigh,
+            long bLow) {
+        return aHigh != bHigh ? Long.compare(aHigh, bHigh)
+                : Long.compareUnsigned(aLow, bLow);
+    }
+
+    /*
+     * Exact O(n^2) search with BigInteger sums, kept to check the long
+     * engines against.
+     */
+    static int maxLengthReference(long[] a, long k) {
+        BigInteger[] prefix = new BigInteger[a.length + 1];
+        prefix[0] = BigInteger.ZERO;
+        for (int i = 0; i < a.length; i++) {
+            prefix[i + 1] = prefix[i].add(BigInteger.valueOf(a[i]));
+        }
+        BigInteger limit = BigInteger.valueOf(k);
+        for (int len = a.length; len > 0; len--) {
+            for (int start = 0; start + len <= a.length; start++) {
+                if (prefix[start + len].subtract(prefix[start])
+                        .compareTo(limit) <= 0) {
+                    return len;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * The original O(n^3) search, kept to check the engines against.
+     */
+    static int maxLengthBruteForce(int[] a, int k) {
         int sum;
         int end;
         for (int len = a.length; len > 0; len--) {
@@ -27,28 +485,243 @@ public class Solution {
 
     }
 
- public static void main(String[] args) throws IOException {
-        Scanner in = new Scanner(System.in);
+    /*
+     * Answers maxLength for one array and many values of k. Building it
+     * takes O(n^2) time and O(n) memory, after which each k costs a binary
+     * search, O(log n).
+     *
+     * floor[len] is the smallest sum of any window at least len long. It
+     * never decreases as len grows, and a window of length len or more
+     * fits k exactly when floor[len] <= k, so the answer for k is the
+     * number of lengths whose floor is at most k.
+     */
+    static final class MaxLengthQueries {
+        private final long[] floor;
+
+        MaxLengthQueries(int[] a) {
+            int n = a.length;
+            long[] prefix = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                prefix[i + 1] = prefix[i] + a[i];
+            }
+            floor = new long[n + 1];
+            floor[0] = Long.MIN_VALUE;
+            long running = Long.MAX_VALUE;
+            // Longest lengths first, so each floor is the running minimum.
+            for (int len = n; len > 0; len--) {
+                long min = Long.MAX_VALUE;
+                for (int i = 0, j = len; j <= n; i++, j++) {
+                    min = Math.min(min, prefix[j] - prefix[i]);
+                }
+                running = Math.min(running, min);
+                floor[len] = running;
+            }
+        }
+
+        int maxLength(int k) {
+            int lo = 0;
+            int hi = floor.length - 1;
+            // floor[lo] <= k always holds; find the last length that fits.
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (floor[mid] <= k) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+
+        /*
+         * Answers every k in ks. A batch large enough to beat a binary
+         * search each is sorted and answered in one sweep over the
+         * lengths, since larger k never get shorter answers.
+         */
+        int[] maxLength(int[] ks) {
+            int[] answers = new int[ks.length];
+            int n = floor.length - 1;
+            int bits = 32 - Integer.numberOfLeadingZeros(n);
+            if ((long) ks.length * bits < n) {
+                for (int q = 0; q < ks.length; q++) {
+                    answers[q] = maxLength(ks[q]);
+                }
+                return answers;
+            }
+            // Sort query indexes by k, packed with k in the high bits.
+            long[] order = new long[ks.length];
+            for (int q = 0; q < ks.length; q++) {
+                order[q] = ((long) ks[q] << 32) | q;
+            }
+            Arrays.sort(order);
+            int len = 0;
+            for (long packed : order) {
+                int k = (int) (packed >> 32);
+                while (len < n && floor[len + 1] <= k) {
+                    len++;
+                }
+                answers[(int) packed] = len;
+            }
+            return answers;
+        }
+    }
+
+    /*
+     * Reads whitespace separated ints straight from the bytes of a stream,
+     * through one large buffer, without creating a String per number.
+     */
+    static final class FastReader {
+        private final InputStream in;
+        private final byte[] buffer;
+        private int position;
+        private int limit;
+
+        FastReader(InputStream in) {
+            this(in, 1 << 16);
+        }
+
+        FastReader(InputStream in, int bufferSize) {
+            this.in = in;
+            this.buffer = new byte[bufferSize];
+        }
+
+        // Next byte of the stream from 0 to 255, or -1 at the end.
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /*
+         * Parses the next int, skipping any whitespace (including \r)
+         * before it. Throws EOFException at the end of the stream and
+         * NumberFormatException on anything else that isn't an int.
+         */
+        int nextInt() throws IOException {
+            int c = read();
+            while (c != -1 && c <= ' ') {
+                c = read();
+            }
+            if (c == -1) {
+                throw new EOFException("Expected an int.");
+            }
+            boolean negative = c == '-';
+            if (negative) {
+                c = read();
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Expected a digit, got "
+                        + (char) c);
+            }
+            // Accumulated as a negative number so MIN_VALUE fits.
+            long value = 0;
+            do {
+                value = value * 10 - (c - '0');
+                if (value < Integer.MIN_VALUE) {
+                    throw new NumberFormatException("Int out of range.");
+                }
+                c = read();
+            } while (c >= '0' && c <= '9');
+            if (c > ' ') {
+                throw new NumberFormatException("Unexpected character "
+                        + (char) c);
+            }
+            if (!negative && value == Integer.MIN_VALUE) {
+                throw new NumberFormatException("Int out of range.");
+            }
+            return (int) (negative ? value : -value);
+        }
+    }
+
+    /*
+     * Writes ints and newlines as ASCII bytes into one buffer, flushing it
+     * to the stream only when it fills up or on close.
+     */
+    static final class FastWriter implements Closeable {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int position;
+
+        FastWriter(OutputStream out) {
+            this(out, 1 << 16);
+        }
+
+        FastWriter(OutputStream out, int bufferSize) {
+            this.out = out;
+            this.buffer = new byte[Math.max(bufferSize, 16)];
+        }
+
+        void writeInt(int value) throws IOException {
+            // An int is at most 11 characters.
+            if (buffer.length - position < 11) {
+                flush();
+            }
+            long v = value;
+            if (v < 0) {
+                buffer[position++] = '-';
+                v = -v;
+            }
+            int end = position + digits(v);
+            int i = end;
+            do {
+                buffer[--i] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            position = end;
+        }
+
+        private static int digits(long v) {
+            int count = 1;
+            while (v >= 10) {
+                v /= 10;
+                count++;
+            }
+            return count;
+        }
+
+        void newLine() throws IOException {
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = '\n';
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        FastReader in = new FastReader(System.in);
         //final String fileName = System.getenv("OUTPUT_PATH");
-        BufferedWriter bw = new BufferedWriter(new FileWriter("out.txt"));
+        FastWriter bw = new FastWriter(new FileOutputStream("out.txt"));
         int res;
-        
-        int _a_size = 0;
-        _a_size = Integer.parseInt(in.nextLine().trim());
+
+        int _a_size = in.nextInt();
         int[] _a = new int[_a_size];
-        int _a_item;
         for(int _a_i = 0; _a_i < _a_size; _a_i++) {
-            _a_item = Integer.parseInt(in.nextLine().trim());
-            _a[_a_i] = _a_item;
+            _a[_a_i] = in.nextInt();
         }
-        
-        int _k;
-        _k = Integer.parseInt(in.nextLine().trim());
-        
+
+        int _k = in.nextInt();
+
         res = maxLength(_a, _k);
-        bw.write(String.valueOf(res));
+        bw.writeInt(res);
         bw.newLine();
-        
+
         bw.close();
     }
 }
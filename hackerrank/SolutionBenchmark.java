@@ -0,0 +1,233 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares the Scanner based input path Solution.main used to have with
+ * Solution.FastReader, BufferedWriter with Solution.FastWriter, and
+ * Solution.maxLength with Solution.maxLengthParallel.
+ *
+ * <pre>
+ * java SolutionBenchmark [name=value,value ...]
+ *
+ *   size       elements in the generated input (default 1000000,10000000)
+ *   warmup     warmup iterations (default 2)
+ *   iterations measured iterations (default 5)
+ * </pre>
+ *
+ * Inputs are shaped like hackerrank_inputs/input003.txt: the element
+ * count, one element from 0 to 999 per line, then k. maxLength runs on
+ * elements from -400 to 599, which takes its prefix-sum engine; set
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism to see how the
+ * parallel version scales.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class SolutionBenchmark {
+
+    // Written with every result so the JIT can't drop the work.
+    private static volatile long sink;
+
+    /**
+     * Something to time.
+     */
+    private interface Task {
+        long run() throws IOException;
+    }
+
+    /**
+     * Gets a stream that throws away everything written to it.
+     *
+     * @return the stream
+     */
+    private static OutputStream discard() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+
+    /**
+     * Writes an input file.
+     *
+     * @param size number of elements
+     * @return the file
+     * @throws IOException if the file can't be written
+     */
+    static Path generate(int size) throws IOException {
+        Path file = Files.createTempFile("solution", ".txt");
+        file.toFile().deleteOnExit();
+        Random random = new Random(1332);
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(
+                Files.newOutputStream(file), 1 << 16))) {
+            out.println(size);
+            for (int i = 0; i < size; i++) {
+                out.println(random.nextInt(1000));
+            }
+            out.print(size * 250);
+        }
+        return file;
+    }
+
+    /**
+     * Reads an input the way Solution.main used to.
+     *
+     * @param in input
+     * @return sum of the values read
+     */
+    static long readScanner(InputStream in) {
+        Scanner scanner = new Scanner(in);
+        int size = Integer.parseInt(scanner.nextLine().trim());
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = Integer.parseInt(scanner.nextLine().trim());
+        }
+        int k = Integer.parseInt(scanner.nextLine().trim());
+        return Arrays.stream(a).asLongStream().sum() + k;
+    }
+
+    /**
+     * Reads an input with Solution.FastReader.
+     *
+     * @param in input
+     * @return sum of the values read
+     * @throws IOException if the input can't be read
+     */
+    static long readFast(InputStream in) throws IOException {
+        Solution.FastReader reader = new Solution.FastReader(in);
+        int size = reader.nextInt();
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = reader.nextInt();
+        }
+        int k = reader.nextInt();
+        return Arrays.stream(a).asLongStream().sum() + k;
+    }
+
+    /**
+     * Times a task.
+     *
+     * @param name name to print
+     * @param size elements handled per run
+     * @param warmup untimed runs
+     * @param iterations timed runs
+     * @param task task to time
+     * @throws IOException if the task fails
+     */
+    private static void time(String name, int size, int warmup,
+            int iterations, Task task) throws IOException {
+        for (int i = 0; i < warmup; i++) {
+            sink += task.run();
+        }
+        double[] ms = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            sink += task.run();
+            ms[i] = (System.nanoTime() - start) / 1e6;
+        }
+        double mean = Arrays.stream(ms).average().orElse(0);
+        double sd = Math.sqrt(Arrays.stream(ms)
+                .map(t -> (t - mean) * (t - mean)).sum() / iterations);
+        System.out.printf("%-14s %10d %10.2f %8.2f %10.1f%n", name, size,
+                mean, sd, size / (mean * 1e3));
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args parameter overrides
+     * @throws IOException if the inputs can't be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {1000000, 10000000};
+        int warmup = 2;
+        int iterations = 5;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected name=value: "
+                        + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+            case "size":
+                sizes = Arrays.stream(value.split(","))
+                        .mapToInt(Integer::parseInt).toArray();
+                break;
+            case "warmup":
+                warmup = Integer.parseInt(value);
+                break;
+            case "iterations":
+                iterations = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown parameter "
+                        + arg.substring(0, eq));
+            }
+        }
+
+        System.out.printf("%-14s %10s %10s %8s %10s%n", "bench", "size", "ms",
+                "stddev", "M ints/s");
+        for (int size : sizes) {
+            Path file = generate(size);
+            time("readScanner", size, warmup, iterations, () -> {
+                try (InputStream in = new BufferedInputStream(
+                        new FileInputStream(file.toFile()))) {
+                    return readScanner(in);
+                }
+            });
+            time("readFast", size, warmup, iterations, () -> {
+                try (InputStream in = new FileInputStream(file.toFile())) {
+                    return readFast(in);
+                }
+            });
+            time("writeBuffered", size, warmup, iterations, () -> {
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(discard()));
+                for (int i = 0; i < size; i++) {
+                    out.write(String.valueOf(i));
+                    out.newLine();
+                }
+                out.close();
+                return size;
+            });
+            time("writeFast", size, warmup, iterations, () -> {
+                Solution.FastWriter out = new Solution.FastWriter(discard());
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(i);
+                    out.newLine();
+                }
+                out.close();
+                return size;
+            });
+            Files.delete(file);
+
+            Random random = new Random(1332);
+            int[] a = new int[size];
+            for (int i = 0; i < size; i++) {
+                a[i] = random.nextInt(1000) - 400;
+            }
+            time("maxLength", size, warmup, iterations,
+                    () -> Solution.maxLength(a, 1000));
+            time("maxLengthPar", size, warmup, iterations,
+                    () -> Solution.maxLengthParallel(a, 1000));
+        }
+    }
+}
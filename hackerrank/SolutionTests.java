@@ -0,0 +1,258 @@
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Solution Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SolutionTests {
+
+    private static final int TIMEOUT = 2000;
+
+    // Values that push sums past the range of a long.
+    private static final long[] EXTREMES = {
+        Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1,
+        Long.MIN_VALUE + 1, Long.MAX_VALUE / 2, Long.MIN_VALUE / 2, 0, 1, -1
+    };
+
+    /**
+     * Picks a value that is extreme most of the time.
+     *
+     * @param random source of randomness
+     * @param negatives whether negative values may be picked
+     * @return the value
+     */
+    private static long adversarial(Random random, boolean negatives) {
+        long value = random.nextInt(3) == 0 ? random.nextLong()
+                : EXTREMES[random.nextInt(EXTREMES.length)];
+        return negatives || value >= 0 ? value
+                : value == Long.MIN_VALUE ? Long.MAX_VALUE : -value;
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01IntEnginesMatchBruteForce() {
+        assertEquals(2, Solution.maxLength(new int[] {1, 2, 3}, 4));
+        assertEquals(3, Solution.maxLength(new int[] {3, 1, 2, 1}, 4));
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            boolean negatives = random.nextBoolean();
+            int[] a = new int[random.nextInt(12)];
+            for (int j = 0; j < a.length; j++) {
+                a[j] = negatives ? random.nextInt(21) - 10
+                        : random.nextInt(10);
+            }
+            int k = random.nextInt(41) - 10;
+            int expected = Solution.maxLengthBruteForce(a, k);
+            assertEquals(expected, Solution.maxLength(a, k));
+            assertEquals(expected, Solution.maxLengthPrefix(a, k));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02IntSumsDoNotOverflow() {
+        int[] a = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        assertEquals(1, Solution.maxLength(a, Integer.MAX_VALUE));
+        a[1] = Integer.MIN_VALUE;
+        assertEquals(3, Solution.maxLength(a, Integer.MAX_VALUE));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03MainMatchesSampleOutputs() throws IOException {
+        // Run from the repository root or from hackerrank.
+        Path inputs = Paths.get("hackerrank_inputs");
+        if (!Files.isDirectory(inputs)) {
+            inputs = Paths.get("..", "hackerrank_inputs");
+        }
+        assertTrue("hackerrank_inputs not found", Files.isDirectory(inputs));
+        // main always writes out.txt; put back whatever was there before.
+        Path out = Paths.get("out.txt");
+        byte[] previous = Files.exists(out) ? Files.readAllBytes(out) : null;
+        InputStream stdin = System.in;
+        try {
+            for (String n : new String[] {"001", "002", "003"}) {
+                try (InputStream in = Files.newInputStream(
+                        inputs.resolve("input" + n + ".txt"))) {
+                    System.setIn(in);
+                    Solution.main(new String[0]);
+                }
+                String expected = new String(Files.readAllBytes(
+                        inputs.resolve("output" + n + ".txt")),
+                        StandardCharsets.US_ASCII);
+                String actual = new String(Files.readAllBytes(out),
+                        StandardCharsets.US_ASCII);
+                assertEquals("input" + n, expected.trim(), actual.trim());
+            }
+        } finally {
+            System.setIn(stdin);
+            if (previous == null) {
+                Files.deleteIfExists(out);
+            } else {
+                Files.write(out, previous);
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04ReaderRejectsHighBytes() throws IOException {
+        // 0xFF used to read as the end of the stream and the other bytes
+        // from 0x80 up as whitespace.
+        byte[][] inputs = {
+            {'7', ' ', (byte) 0xFF, '8'},
+            {'7', ' ', '1', '2', (byte) 0x80},
+            {'7', '\n', (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '9'}
+        };
+        for (byte[] input : inputs) {
+            Solution.FastReader reader = new Solution.FastReader(
+                    new ByteArrayInputStream(input));
+            assertEquals(7, reader.nextInt());
+            try {
+                reader.nextInt();
+                fail();
+            } catch (NumberFormatException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test05Queries() {
+        // Small batches take a binary search per k, larger ones the sweep.
+        Random random = new Random(1332);
+        for (int i = 0; i < 2000; i++) {
+            boolean extremes = i % 4 == 0;
+            int[] a = new int[random.nextInt(15)];
+            for (int j = 0; j < a.length; j++) {
+                a[j] = extremes && random.nextBoolean()
+                        ? (random.nextBoolean() ? Integer.MAX_VALUE
+                        : Integer.MIN_VALUE) : random.nextInt(21) - 10;
+            }
+            int[] ks = new int[random.nextInt(2) == 0 ? random.nextInt(3)
+                    : random.nextInt(40)];
+            for (int j = 0; j < ks.length; j++) {
+                ks[j] = extremes && random.nextBoolean()
+                        ? (random.nextBoolean() ? Integer.MAX_VALUE
+                        : Integer.MIN_VALUE) : random.nextInt(61) - 30;
+            }
+            Solution.MaxLengthQueries queries =
+                    new Solution.MaxLengthQueries(a);
+            int[] answers = queries.maxLength(ks);
+            for (int j = 0; j < ks.length; j++) {
+                int expected = Solution.maxLength(a, ks[j]);
+                assertEquals(expected, queries.maxLength(ks[j]));
+                assertEquals(expected, answers[j]);
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06LongEnginesMatchBigInteger() {
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            boolean negatives = random.nextBoolean();
+            long[] a = new long[random.nextInt(10)];
+            for (int j = 0; j < a.length; j++) {
+                a[j] = adversarial(random, negatives);
+            }
+            long k = adversarial(random, true);
+            int expected = Solution.maxLengthReference(a, k);
+            assertEquals(expected, Solution.maxLength(a, k));
+            assertEquals(expected, Solution.maxLengthWide(a, k));
+            if (!negatives) {
+                assertEquals(expected, Solution.maxLengthWindow(a, k));
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test07LongPrefixMatchesBigInteger() {
+        // Small enough values take the plain long prefix engine.
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            long[] a = new long[random.nextInt(10)];
+            for (int j = 0; j < a.length; j++) {
+                a[j] = (random.nextLong() >> 8) / 16;
+            }
+            long k = random.nextBoolean() ? adversarial(random, true)
+                    : a.length == 0 ? 0 : a[0] + a[a.length - 1];
+            assertEquals(Solution.maxLengthReference(a, k),
+                    Solution.maxLengthPrefix(a, k));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void test08ParallelMatchesSequential() throws Exception {
+        // One thread and eight cut the array into different chunk counts.
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool eight = new ForkJoinPool(8);
+        try {
+            parallelMatchesSequential(single, eight);
+        } finally {
+            single.shutdown();
+            eight.shutdown();
+        }
+    }
+
+    /**
+     * Checks maxLengthParallel against maxLength on the common pool and in
+     * each of the given pools.
+     *
+     * @param pools pools to run maxLengthParallel in
+     * @throws Exception if a pool fails to run it
+     */
+    private static void parallelMatchesSequential(ForkJoinPool... pools)
+            throws Exception {
+        Random random = new Random(1332);
+        int n = 5 * Solution.PARALLEL_THRESHOLD / 2;
+        for (int round = 0; round < 12; round++) {
+            int[] a = new int[n + random.nextInt(1000)];
+            int shape = round % 4;
+            for (int i = 0; i < a.length; i++) {
+                switch (shape) {
+                case 0:
+                    a[i] = random.nextInt(1000);
+                    break;
+                case 1:
+                    a[i] = random.nextInt(2000) - 990;
+                    break;
+                case 2:
+                    // Long rising and falling runs.
+                    a[i] = (i / 5000) % 2 == 0 ? random.nextInt(10)
+                            : -random.nextInt(10);
+                    break;
+                default:
+                    a[i] = random.nextInt(3) == 0 ? Integer.MIN_VALUE
+                            : Integer.MAX_VALUE;
+                    break;
+                }
+            }
+            int[] ks = {-5, 0, random.nextInt(1000), random.nextInt(1000000),
+                Integer.MAX_VALUE, Integer.MIN_VALUE};
+            for (int k : ks) {
+                int expected = Solution.maxLength(a, k);
+                assertEquals(expected, Solution.maxLengthParallel(a, k));
+                for (ForkJoinPool pool : pools) {
+                    assertEquals(expected, (int) pool.submit(() ->
+                            Solution.maxLengthParallel(a, k)).get());
+                }
+            }
+        }
+    }
+}
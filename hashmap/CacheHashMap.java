@@ -0,0 +1,550 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A linear probing hash map that acts as a bounded cache, evicting entries
+ * once a maximum entry count or total weight is passed.
+ *
+ * Eviction uses CLOCK (second chance): every slot has a reference bit that
+ * {@code get} sets, and a hand sweeps the table in slot order, clearing
+ * set bits and evicting the first live entry whose bit is already clear.
+ * The slots themselves form the clock, so there are no linked lists to
+ * maintain and a hit allocates nothing. Evicted slots become removed slots,
+ * as in {@code HashMap}, and are reused or compacted the same way.
+ *
+ * With TinyLFU admission turned on (W-TinyLFU), new entries go into a
+ * small window region of about 1% of the cache, swept by its own hand.
+ * An entry leaving the window only joins the main region if a
+ * {@code FrequencySketch} says it has been seen more often than the entry
+ * the main hand would evict in its place. Keys seen once can't push out
+ * popular ones, which keeps the hit rate up under skewed access.
+ *
+ * Keys and values live in flat parallel arrays like {@code FlatHashMap},
+ * with power-of-two probing as in {@code HashMap}'s power-of-two mode.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class CacheHashMap<K, V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    // Share of a W-TinyLFU cache given to the window region.
+    private static final int WINDOW_DIVISOR = 100;
+
+    private final long maximumWeight;
+    // Null when every entry weighs 1.
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    // Null unless TinyLFU admission is on.
+    private final FrequencySketch sketch;
+    private final int windowMax;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int[] weights;
+    private byte[] states;
+    private boolean[] referenced;
+    private boolean[] inWindow;
+    private int size;
+    private int removed;
+    private long weight;
+    private int hand;
+    private int windowSize;
+    private int windowHand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a cache holding at most {@code maximumSize} entries. The table
+     * is sized up front so it never has to regrow.
+     *
+     * @param maximumSize largest number of entries kept
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public CacheHashMap(int maximumSize) {
+        this(maximumSize, false);
+    }
+
+    /**
+     * Create a cache holding at most {@code maximumSize} entries, choosing
+     * whether new entries have to earn their place through TinyLFU
+     * admission. The table is sized up front so it never has to regrow.
+     *
+     * @param maximumSize largest number of entries kept
+     * @param tinyLfu whether to use a window region and TinyLFU admission
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public CacheHashMap(int maximumSize, boolean tinyLfu) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cannot have a cache with a "
+                    + "maximum size below 1.");
+        }
+        this.maximumWeight = maximumSize;
+        this.weigher = null;
+        this.sketch = tinyLfu ? new FrequencySketch(maximumSize) : null;
+        this.windowMax = Math.max(1, maximumSize / WINDOW_DIVISOR);
+        allocate((int) Math.ceil((maximumSize + 1)
+                / HashMap.MAX_LOAD_FACTOR));
+    }
+
+    /**
+     * Create a cache whose entries' weights add up to at most
+     * {@code maximumWeight}.
+     *
+     * @param maximumWeight largest total weight kept
+     * @param weigher gives the weight of an entry, which must not be
+     * negative and is taken once when the entry is set
+     * @throws IllegalArgumentException if maximumWeight is negative or
+     * weigher is null
+     */
+    public CacheHashMap(long maximumWeight,
+            ToIntBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight < 0 || weigher == null) {
+            throw new IllegalArgumentException("Cannot have a cache with a "
+                    + "negative maximum weight or null weigher.");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.sketch = null;
+        this.windowMax = 0;
+        allocate(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Replaces the backing arrays with empty ones.
+     *
+     * @param length requested capacity, rounded up to a power of two
+     */
+    private void allocate(int length) {
+        int capacity = length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        weights = new int[capacity];
+        states = new byte[capacity];
+        referenced = new boolean[capacity];
+        inWindow = new boolean[capacity];
+        removed = 0;
+        hand = 0;
+        windowHand = 0;
+    }
+
+    /**
+     * Finds the slot holding {@code key}.
+     *
+     * @param key key to look for
+     * @param hashCode {@code key.hashCode()}
+     * @return index of the slot, or -1 if the key is not cached
+     */
+    private int indexOf(Object key, int hashCode) {
+        int mask = keys.length - 1;
+        int index = HashMap.spread(hashCode) & mask;
+        for (int probes = 0; probes <= mask && states[index] != EMPTY;
+                probes++) {
+            if (states[index] == FULL && hashes[index] == hashCode
+                    && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key, value pair to the cache, replacing the value if the key is
+     * already present, then evicts entries until the cache is within its
+     * bound. The new entry starts with its reference bit set, so the hand
+     * passes it once before it can be evicted.
+     *
+     * @param key key to add into the cache
+     * @param value value to add into the cache
+     * @return null if the key was not already cached. If it was, return the
+     * old value associated with it
+     */
+    @SuppressWarnings("unchecked")
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+        int entryWeight = weigher == null ? 1 : weigher.applyAsInt(key, value);
+        if (entryWeight < 0) {
+            throw new IllegalArgumentException("Cannot add entry with "
+                    + "negative weight.");
+        }
+
+        int hashCode = key.hashCode();
+        if (sketch != null) {
+            sketch.increment(hashCode);
+        }
+        int index = indexOf(key, hashCode);
+        V oldValue = null;
+        if (index != -1) {
+            oldValue = (V) values[index];
+            weight += entryWeight - weights[index];
+        } else {
+            if (((size + 1) / (double) keys.length)
+                    > HashMap.MAX_LOAD_FACTOR) {
+                resizeBackingTable(2 * keys.length);
+            } else if (((size + removed + 1) / (double) keys.length)
+                    > HashMap.MAX_OCCUPIED_FACTOR) {
+                resizeBackingTable(keys.length);
+            }
+            index = freeSlot(hashCode);
+            keys[index] = key;
+            hashes[index] = hashCode;
+            states[index] = FULL;
+            size++;
+            weight += entryWeight;
+        }
+        values[index] = value;
+        weights[index] = entryWeight;
+        referenced[index] = true;
+
+        if (sketch != null) {
+            if (oldValue == null) {
+                inWindow[index] = true;
+                windowSize++;
+                admit();
+            }
+        } else {
+            while (weight > maximumWeight) {
+                removeAt(sweep(false));
+                evictions++;
+            }
+        }
+        return oldValue;
+    }
+
+    /**
+     * Finds the first empty or removed slot on a key's probe sequence.
+     *
+     * @param hashCode hash code of the key
+     * @return index of the slot
+     */
+    private int freeSlot(int hashCode) {
+        int mask = keys.length - 1;
+        int index = HashMap.spread(hashCode) & mask;
+        while (states[index] == FULL) {
+            index = (index + 1) & mask;
+        }
+        if (states[index] == REMOVED) {
+            removed--;
+        }
+        return index;
+    }
+
+    /**
+     * Advances a clock hand to the next live entry of a region whose
+     * reference bit is clear, clearing the bits it passes. The region must
+     * not be empty.
+     *
+     * @param window true to sweep the window region with its own hand,
+     * false to sweep the main region
+     * @return index of the slot the hand stopped at
+     */
+    private int sweep(boolean window) {
+        int mask = keys.length - 1;
+        while (true) {
+            int index = window ? windowHand : hand;
+            if (window) {
+                windowHand = (index + 1) & mask;
+            } else {
+                hand = (index + 1) & mask;
+            }
+            if (states[index] != FULL || inWindow[index] != window) {
+                continue;
+            }
+            if (referenced[index]) {
+                referenced[index] = false;
+                continue;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Keeps a W-TinyLFU cache within its bound after an entry joined the
+     * window. If the window is over its share, the entry its hand picks
+     * becomes a candidate for the main region. If the main region is full,
+     * the candidate and the main hand's victim are compared by estimated
+     * frequency and the less frequent one is evicted; a tie goes to the
+     * victim, which is already established.
+     */
+    private void admit() {
+        if (windowSize <= windowMax) {
+            return;
+        }
+        int candidate = sweep(true);
+        int mainMax = (int) maximumWeight - windowMax;
+        if (size - windowSize < mainMax) {
+            inWindow[candidate] = false;
+            windowSize--;
+            return;
+        }
+        int victim = mainMax == 0 ? -1 : sweep(false);
+        if (victim != -1 && sketch.frequency(hashes[candidate])
+                > sketch.frequency(hashes[victim])) {
+            inWindow[candidate] = false;
+            windowSize--;
+            removeAt(victim);
+        } else {
+            removeAt(candidate);
+        }
+        evictions++;
+    }
+
+    /**
+     * Turns a live slot into a removed one, letting go of its key and value.
+     *
+     * @param index index of the slot
+     */
+    private void removeAt(int index) {
+        if (inWindow[index]) {
+            inWindow[index] = false;
+            windowSize--;
+        }
+        states[index] = REMOVED;
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        removed++;
+        weight -= weights[index];
+    }
+
+    /**
+     * Removes the entry with the given key from the cache.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    @SuppressWarnings("unchecked")
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        int index = indexOf(key, key.hashCode());
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        V value = (V) values[index];
+        removeAt(index);
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key and marks the entry as
+     * recently used. Counts as a hit or a miss.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    public V get(K key) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key and marks the entry as
+     * recently used, or returns null if the key is not cached. Counts as a
+     * hit or a miss. Never allocates.
+     *
+     * @param key key to look up
+     * @return the value associated with the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V getIfPresent(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int index = indexOf(key, hashCode);
+        if (index == -1) {
+            // The set that usually follows a miss counts the access.
+            misses++;
+            return null;
+        }
+        hits++;
+        referenced[index] = true;
+        if (sketch != null) {
+            sketch.increment(hashCode);
+        }
+        return (V) values[index];
+    }
+
+    /**
+     * Returns whether or not the key is cached. Does not count as a hit or
+     * a miss and does not mark the entry as used.
+     *
+     * @param key key to look for
+     * @return true if the key is cached, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        return indexOf(key, key.hashCode()) != -1;
+    }
+
+    /**
+     * Empties the cache. The counters are kept.
+     */
+    public void clear() {
+        allocate(keys.length);
+        size = 0;
+        weight = 0;
+        windowSize = 0;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return number of entries in the cache
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the total weight of the cached entries, which is the number of
+     * entries when there is no weigher.
+     *
+     * @return total weight
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * Gets the number of lookups that found their key.
+     *
+     * @return number of hits
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that did not find their key.
+     *
+     * @return number of misses
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the bound.
+     *
+     * @return number of evictions
+     */
+    public long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Gets the fraction of lookups that were hits.
+     *
+     * @return hits over lookups, or 1 if there have been no lookups
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the set of cached keys.
+     *
+     * @return set of keys in the cache
+     */
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) {
+                res.add((K) keys[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the list of cached values, in slot order.
+     *
+     * @return list of values in the cache
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (states[i] == FULL) {
+                res.add((V) values[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resizes the backing arrays to at least {@code length} slots, rehashing
+     * every live entry with its reference bit, weight and region. Removed
+     * slots are dropped and the clock hands start over at slot 0.
+     *
+     * @param length new minimum length of the backing arrays
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        int[] oldWeights = weights;
+        byte[] oldStates = states;
+        boolean[] oldReferenced = referenced;
+        boolean[] oldInWindow = inWindow;
+        allocate(length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == FULL) {
+                int index = freeSlot(oldHashes[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                hashes[index] = oldHashes[i];
+                weights[index] = oldWeights[i];
+                states[index] = FULL;
+                referenced[index] = oldReferenced[i];
+                inWindow[index] = oldInWindow[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the current load factor of the cache.
+     *
+     * @return size divided by the length of the backing arrays
+     */
+    public float load() {
+        return ((float) size) / keys.length;
+    }
+}
@@ -0,0 +1,161 @@
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * CacheHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CacheHashMapTests {
+
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void test01BoundedSize() {
+        CacheHashMap<Integer, String> cache = new CacheHashMap<>(10);
+        for (int i = 0; i < 100; i++) {
+            assertNull(cache.set(i, "v" + i));
+            assertTrue(cache.size() <= 10);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.evictionCount());
+        assertTrue(cache.contains(99));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02SecondChance() {
+        CacheHashMap<Integer, String> cache = new CacheHashMap<>(4);
+        for (int i = 0; i < 5; i++) {
+            cache.set(i, "v" + i);
+        }
+        // The first eviction swept every reference bit clear.
+        assertEquals(4, cache.size());
+        int used = cache.contains(0) ? 0 : 1;
+        assertEquals("v" + used, cache.get(used));
+
+        // The hand passes over the used entry and the new one.
+        cache.set(5, "v5");
+        assertEquals(4, cache.size());
+        assertTrue(cache.contains(used));
+        assertTrue(cache.contains(5));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03Weight() {
+        CacheHashMap<String, String> cache =
+                new CacheHashMap<>(10, (k, v) -> v.length());
+        cache.set("a", "12345");
+        cache.set("b", "1234");
+        assertEquals(9, cache.weight());
+        cache.set("c", "123");
+        assertTrue(cache.weight() <= 10);
+        assertEquals(cache.size() == 2 ? 8 : 7, cache.weight());
+
+        cache.set("c", "1234567890");
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.weight());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04Counters() {
+        CacheHashMap<Integer, String> cache = new CacheHashMap<>(2);
+        cache.set(1, "a");
+        assertEquals("a", cache.get(1));
+        assertNull(cache.getIfPresent(2));
+        try {
+            cache.get(3);
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        assertFalse(cache.contains(4));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1 / 3.0, cache.hitRate(), 1e-9);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test05RandomOperations() {
+        CacheHashMap<Integer, Integer> cache = new CacheHashMap<>(100);
+        java.util.HashMap<Integer, Integer> latest = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                if (cache.contains(key)) {
+                    assertEquals(latest.get(key), cache.delete(key));
+                }
+            } else if (random.nextBoolean()) {
+                Integer value = cache.getIfPresent(key);
+                if (value != null) {
+                    assertEquals(latest.get(key), value);
+                }
+            } else {
+                cache.set(key, i);
+                latest.put(key, i);
+            }
+            assertTrue(cache.size() <= 100);
+        }
+        assertEquals(cache.size(), cache.keySet().size());
+        assertEquals(cache.size(), cache.weight());
+        assertTrue(cache.hitCount() > 0 && cache.missCount() > 0);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06FrequencySketch() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(42);
+        }
+        sketch.increment(7);
+        assertEquals(15, sketch.frequency(42));
+        assertTrue(sketch.frequency(7) >= 1);
+        assertTrue(sketch.frequency(1000) <= 1);
+
+        // Enough other keys trigger a reset that halves every counter.
+        for (int i = 0; i < 640; i++) {
+            sketch.increment(100000 + i);
+        }
+        assertTrue(sketch.frequency(42) <= 8);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test07TinyLfuResistsScans() {
+        CacheHashMap<Integer, String> clock = new CacheHashMap<>(100);
+        CacheHashMap<Integer, String> tinyLfu = new CacheHashMap<>(100, true);
+        for (CacheHashMap<Integer, String> cache : java.util.Arrays.asList(
+                clock, tinyLfu)) {
+            for (int round = 0; round < 50; round++) {
+                // 50 hot keys, then a scan of 200 keys seen only once.
+                for (int key = 0; key < 50; key++) {
+                    if (cache.getIfPresent(key) == null) {
+                        cache.set(key, "hot");
+                    }
+                }
+                for (int key = 0; key < 200; key++) {
+                    int once = 1000 + round * 200 + key;
+                    if (cache.getIfPresent(once) == null) {
+                        cache.set(once, "once");
+                    }
+                }
+                assertTrue(cache.size() <= 100);
+            }
+        }
+        assertTrue(tinyLfu.hitRate() > clock.hitRate());
+        for (int key = 0; key < 50; key++) {
+            assertTrue(tinyLfu.contains(key));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays an access trace against LRU, CLOCK and W-TinyLFU caches of
+ * several sizes and prints the hit rate of each.
+ *
+ * LRU is {@code java.util.LinkedHashMap} in access order; CLOCK and
+ * W-TinyLFU are {@code CacheHashMap} without and with TinyLFU admission.
+ * Every access that misses loads the key into the cache.
+ *
+ * <pre>
+ * java CacheSimulator [name=value,value ...]
+ *
+ *   trace  file with one access per line; the first word of each line is
+ *          the key. Without it a synthetic trace is used: Zipfian
+ *          (exponent 0.99) over 1,000,000 keys with 20% of the accesses
+ *          going to keys that are never seen again
+ *   length accesses in the synthetic trace (default 2,000,000)
+ *   sizes  cache sizes (default 1000,10000,100000)
+ * </pre>
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class CacheSimulator {
+
+    private static final int SYNTHETIC_KEYS = 1_000_000;
+    private static final int ONE_HIT_PERCENT = 20;
+
+    /**
+     * Reads a trace file, keeping the first word of every non-blank line.
+     *
+     * @param file path of the trace
+     * @return the keys in order
+     * @throws IOException if the file can't be read
+     */
+    static Object[] readTrace(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        return lines.stream().map(String::trim).filter(l -> !l.isEmpty())
+                .map(l -> l.split("\\s+")[0]).toArray();
+    }
+
+    /**
+     * Builds a Zipfian trace with one-hit keys mixed in.
+     *
+     * @param length number of accesses
+     * @param random source of randomness
+     * @return the keys in order
+     */
+    static Object[] syntheticTrace(int length, Random random) {
+        int[] popular = HashMapBenchmark.accesses("zipf", SYNTHETIC_KEYS,
+                length, random);
+        Object[] trace = new Object[length];
+        long oneHit = -1;
+        for (int i = 0; i < length; i++) {
+            trace[i] = random.nextInt(100) < ONE_HIT_PERCENT
+                    ? Long.valueOf(oneHit--) : Long.valueOf(popular[i]);
+        }
+        return trace;
+    }
+
+    /**
+     * Replays a trace against an LRU cache.
+     *
+     * @param trace keys in order
+     * @param size cache size
+     * @return fraction of accesses that hit
+     */
+    static double lru(Object[] trace, int size) {
+        Map<Object, Boolean> cache =
+                new LinkedHashMap<Object, Boolean>(size * 2, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<Object, Boolean> eldest) {
+                        return size() > size;
+                    }
+                };
+        long hits = 0;
+        for (Object key : trace) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, Boolean.TRUE);
+            }
+        }
+        return hits / (double) trace.length;
+    }
+
+    /**
+     * Replays a trace against a {@code CacheHashMap}.
+     *
+     * @param trace keys in order
+     * @param cache cache to replay against
+     * @return fraction of accesses that hit
+     */
+    static double replay(Object[] trace, CacheHashMap<Object, Boolean> cache) {
+        for (Object key : trace) {
+            if (cache.getIfPresent(key) == null) {
+                cache.set(key, Boolean.TRUE);
+            }
+        }
+        return cache.hitRate();
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @param args parameter overrides
+     * @throws IOException if the trace can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        String file = null;
+        int length = 2_000_000;
+        int[] sizes = {1000, 10000, 100000};
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected name=value: "
+                        + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+            case "trace":
+                file = value;
+                break;
+            case "length":
+                length = Integer.parseInt(value);
+                break;
+            case "sizes":
+                sizes = Arrays.stream(value.split(","))
+                        .mapToInt(Integer::parseInt).toArray();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown parameter "
+                        + arg.substring(0, eq));
+            }
+        }
+
+        Object[] trace = file != null ? readTrace(file)
+                : syntheticTrace(length, new Random(1332));
+        System.out.printf("%d accesses from %s%n", trace.length,
+                file != null ? file : "synthetic Zipfian trace");
+        System.out.printf("%9s %8s %8s %10s%n", "size", "LRU", "CLOCK",
+                "W-TinyLFU");
+        for (int size : sizes) {
+            System.out.printf("%9d %7.2f%% %7.2f%% %9.2f%%%n", size,
+                    100 * lru(trace, size),
+                    100 * replay(trace, new CacheHashMap<>(size)),
+                    100 * replay(trace, new CacheHashMap<>(size, true)));
+        }
+    }
+}
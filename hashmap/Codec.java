@@ -0,0 +1,130 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values to and from a fixed number of bytes so maps like
+ * {@code OffHeapHashMap} can store them outside the Java heap.
+ *
+ * A codec used for keys must be canonical: equal keys have to encode to
+ * the same bytes, because stored keys are compared byte by byte instead of
+ * being decoded and compared with {@code equals}.
+ *
+ * @param <T> type that is encoded
+ * @author John Pratt
+ * @version 1.0
+ */
+public interface Codec<T> {
+
+    /**
+     * Encodes {@code Integer}s as 4 big-endian bytes.
+     */
+    Codec<Integer> INT = new Codec<Integer>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Encodes {@code Long}s as 8 big-endian bytes.
+     */
+    Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Gets a codec for strings of at most {@code maxBytes} bytes of UTF-8.
+     * Each string takes a 4 byte length followed by its bytes, zero padded
+     * to {@code maxBytes}.
+     *
+     * @param maxBytes longest encoded string accepted
+     * @return the codec
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    static Codec<String> utf8(int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cannot have a negative "
+                    + "string width.");
+        }
+        return new Codec<String>() {
+            @Override
+            public int width() {
+                return Integer.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(String value, ByteBuffer buffer, int offset) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("String is longer "
+                            + "than " + maxBytes + " bytes of UTF-8.");
+                }
+                buffer.putInt(offset, bytes.length);
+                for (int i = 0; i < maxBytes; i++) {
+                    buffer.put(offset + Integer.BYTES + i,
+                            i < bytes.length ? bytes[i] : 0);
+                }
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset) {
+                byte[] bytes = new byte[buffer.getInt(offset)];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = buffer.get(offset + Integer.BYTES + i);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of bytes every encoded value takes.
+     *
+     * @return encoded width in bytes
+     */
+    int width();
+
+    /**
+     * Writes exactly {@code width()} bytes for a value, starting at an
+     * absolute offset. The buffer's position is not changed.
+     *
+     * @param value value to encode, never null
+     * @param buffer buffer to write into
+     * @param offset index of the first byte to write
+     * @throws IllegalArgumentException if the value does not fit
+     */
+    void write(T value, ByteBuffer buffer, int offset);
+
+    /**
+     * Reads a value written by {@code write}. The buffer's position is not
+     * changed.
+     *
+     * @param buffer buffer to read from
+     * @param offset index of the first byte to read
+     * @return the decoded value
+     */
+    T read(ByteBuffer buffer, int offset);
+}
@@ -0,0 +1,349 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@code HashMap} whose entries expire a set time after they are
+ * written, or after they were last written or read.
+ *
+ * Expiry is both lazy and proactive. {@code get} and {@code contains}
+ * check the deadline of the entry they find, so an expired entry is never
+ * returned. Every entry is also scheduled on a {@code TimerWheel}, which
+ * each operation moves forward to the current time; entries in the
+ * buckets it passes are reclaimed without looking at the rest of the
+ * table. Either way an expired entry is marked removed exactly as
+ * {@code delete} would, so its slot is reused or compacted like any other
+ * removed slot.
+ *
+ * {@code size}, the views, {@code forEach}, the cursor and the streams
+ * move the wheel forward too, but they don't check each deadline. As the
+ * wheel works in buckets of about a second, they can still count an entry
+ * for up to about a second after it expires. A live view or cursor only
+ * sees entries reclaimed by later operations or {@code cleanUp}.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class ExpiringHashMap<K, V> extends HashMap<K, V> {
+
+    // Longest duration kept, so deadlines never overflow (about 146 years).
+    private static final long MAX_DURATION = Long.MAX_VALUE >>> 1;
+
+    private final long defaultDuration;
+    private final boolean afterAccess;
+    private final LongSupplier ticker;
+    private final Consumer<TimerWheel.Entry<K, V>> onExpired = this::expire;
+    private TimerWheel<K, V> wheel;
+    // Time of the operation in progress, and the duration of the entry
+    // set is adding, for inserted.
+    private long now;
+    private long pendingDuration;
+
+    /**
+     * Create a map whose entries expire {@code duration} after they are
+     * written, or after they were last read or written when
+     * {@code afterAccess} is true.
+     *
+     * @param duration how long entries live
+     * @param unit unit of duration
+     * @param afterAccess whether reads restart an entry's time too
+     * @throws IllegalArgumentException if duration is not positive or unit
+     * is null
+     */
+    public ExpiringHashMap(long duration, TimeUnit unit,
+            boolean afterAccess) {
+        this(duration, unit, afterAccess, System::nanoTime);
+    }
+
+    /**
+     * Create a map that reads the time from {@code ticker}.
+     *
+     * @param duration how long entries live
+     * @param unit unit of duration
+     * @param afterAccess whether reads restart an entry's time too
+     * @param ticker source of the time in nanoseconds
+     * @throws IllegalArgumentException if duration is not positive or unit
+     * is null
+     */
+    ExpiringHashMap(long duration, TimeUnit unit, boolean afterAccess,
+            LongSupplier ticker) {
+        this.defaultDuration = toNanos(duration, unit);
+        this.afterAccess = afterAccess;
+        this.ticker = ticker;
+        this.wheel = new TimerWheel<>(ticker.getAsLong());
+    }
+
+    /**
+     * Checks and converts a duration.
+     *
+     * @param duration duration to convert
+     * @param unit unit of duration
+     * @return the duration in nanoseconds, capped at {@code MAX_DURATION}
+     * @throws IllegalArgumentException if duration is not positive or unit
+     * is null
+     */
+    private static long toNanos(long duration, TimeUnit unit) {
+        if (duration <= 0 || unit == null) {
+            throw new IllegalArgumentException("Cannot expire entries after "
+                    + "a duration that is not positive or has no unit.");
+        }
+        return Math.min(unit.toNanos(duration), MAX_DURATION);
+    }
+
+    /**
+     * Reads the clock and moves the wheel up to it, reclaiming every entry
+     * in the buckets it passes.
+     */
+    private void tick() {
+        now = ticker.getAsLong();
+        wheel.advance(now, onExpired);
+    }
+
+    /**
+     * Marks an entry the wheel found expired as removed.
+     *
+     * @param entry expired entry, already unscheduled
+     */
+    private void expire(TimerWheel.Entry<K, V> entry) {
+        if (!entry.isRemoved()) {
+            expunge(entry);
+        }
+    }
+
+    /**
+     * Finds the live entry for a key, reclaiming it on the spot if it has
+     * expired.
+     *
+     * @param key key to look for, not null
+     * @return the entry, or null if the key is not in the map or expired
+     */
+    private TimerWheel.Entry<K, V> lookup(K key) {
+        TimerWheel.Entry<K, V> entry = (TimerWheel.Entry<K, V>) liveEntry(key);
+        if (entry != null && entry.deadline - now <= 0) {
+            wheel.unschedule(entry);
+            expunge(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Restarts an entry's time and moves it to its new bucket.
+     *
+     * @param entry entry that was written, or read in after-access mode
+     */
+    private void restart(TimerWheel.Entry<K, V> entry) {
+        entry.deadline = now + entry.duration;
+        wheel.schedule(entry);
+    }
+
+    @Override
+    public V set(K key, V value) {
+        return set(key, value, defaultDuration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds a key, value pair that expires after its own duration instead of
+     * the map's. In after-access mode that duration also applies after each
+     * read.
+     *
+     * @param key key to add
+     * @param value value to add
+     * @param duration how long the entry lives
+     * @param unit unit of duration
+     * @return null if the key was not in the map, otherwise its old value
+     * @throws IllegalArgumentException if key or value is null, duration is
+     * not positive or unit is null
+     */
+    public V set(K key, V value, long duration, TimeUnit unit) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+        long nanos = toNanos(duration, unit);
+        tick();
+        TimerWheel.Entry<K, V> entry = lookup(key);
+        if (entry != null) {
+            V oldValue = entry.getValue();
+            entry.setValue(value);
+            entry.duration = nanos;
+            restart(entry);
+            return oldValue;
+        }
+        pendingDuration = nanos;
+        return super.set(key, value);
+    }
+
+    @Override
+    MapEntry<K, V> newEntry(K key, V value, int hashCode) {
+        return new TimerWheel.Entry<>(key, value, hashCode);
+    }
+
+    @Override
+    void inserted(MapEntry<K, V> entry) {
+        TimerWheel.Entry<K, V> added = (TimerWheel.Entry<K, V>) entry;
+        added.duration = pendingDuration;
+        restart(added);
+    }
+
+    /**
+     * Adds every pair with the map's duration, one {@code set} at a time so
+     * each entry is scheduled.
+     *
+     * @param keys keys to add
+     * @param values values to add, matching keys by index
+     * @throws IllegalArgumentException if the arrays are null, differ in
+     * length or hold a null, in which case the map is unchanged
+     */
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        if (keys == null || values == null || keys.length != values.length) {
+            throw new IllegalArgumentException("Cannot add keys and values "
+                    + "that are null or of different lengths to hash map.");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException("Cannot add null key or "
+                        + "value to hash map.");
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            set(keys[i], values[i]);
+        }
+    }
+
+    @Override
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+        tick();
+        TimerWheel.Entry<K, V> entry = lookup(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        wheel.unschedule(entry);
+        return expunge(entry);
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+        tick();
+        TimerWheel.Entry<K, V> entry = lookup(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        if (afterAccess) {
+            restart(entry);
+        }
+        return entry.getValue();
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+        tick();
+        return lookup(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        now = ticker.getAsLong();
+        wheel = new TimerWheel<>(now);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        tick();
+        return super.keySet();
+    }
+
+    @Override
+    public List<V> values() {
+        tick();
+        return super.values();
+    }
+
+    @Override
+    public int size() {
+        tick();
+        return super.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        tick();
+        super.forEach(action);
+    }
+
+    @Override
+    public Cursor cursor() {
+        tick();
+        return super.cursor();
+    }
+
+    @Override
+    public Set<K> keyView() {
+        tick();
+        return super.keyView();
+    }
+
+    @Override
+    public Collection<V> valueView() {
+        tick();
+        return super.valueView();
+    }
+
+    @Override
+    public Spliterator<MapEntry<K, V>> spliterator() {
+        tick();
+        return super.spliterator();
+    }
+
+    @Override
+    public Stream<MapEntry<K, V>> entryStream() {
+        tick();
+        return super.entryStream();
+    }
+
+    @Override
+    public void parallelForEach(BiConsumer<? super K, ? super V> action) {
+        tick();
+        super.parallelForEach(action);
+    }
+
+    @Override
+    public <U> U reduce(BiFunction<? super K, ? super V, ? extends U>
+            transformer, U identity, BinaryOperator<U> reducer) {
+        tick();
+        return super.reduce(transformer, identity, reducer);
+    }
+
+    /**
+     * Reclaims every expired entry the wheel has moved past. Entries due in
+     * the current bucket of about a second may be left for later.
+     */
+    public void cleanUp() {
+        tick();
+    }
+}
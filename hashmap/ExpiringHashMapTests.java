@@ -0,0 +1,186 @@
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * ExpiringHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ExpiringHashMapTests {
+
+    private static final int TIMEOUT = 200;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Fake clock read by the maps under test.
+    private long time = 1000 * SECOND;
+
+    @Test(timeout = TIMEOUT)
+    public void test01ExpireAfterWrite() {
+        ExpiringHashMap<String, String> map = new ExpiringHashMap<>(10,
+                TimeUnit.SECONDS, false, () -> time);
+        map.set("a", "1");
+        time += 9 * SECOND;
+        assertEquals("1", map.get("a"));
+        map.set("b", "2");
+
+        // Reads don't extend the life of an entry.
+        time += SECOND;
+        assertFalse(map.contains("a"));
+        try {
+            map.get("a");
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        assertEquals(1, map.size());
+        assertEquals(1, map.removedCount());
+
+        // A write does, and the expired slot is reused.
+        assertEquals("2", map.set("b", "3"));
+        time += 9 * SECOND;
+        assertEquals("3", map.get("b"));
+        assertNull(map.set("a", "4"));
+        assertEquals(0, map.removedCount());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02ExpireAfterAccess() {
+        ExpiringHashMap<String, String> map = new ExpiringHashMap<>(10,
+                TimeUnit.SECONDS, true, () -> time);
+        map.set("a", "1");
+        map.set("b", "2");
+        for (int i = 0; i < 5; i++) {
+            time += 8 * SECOND;
+            assertEquals("1", map.get("a"));
+        }
+        assertFalse(map.contains("b"));
+        assertTrue(map.contains("a"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03PerEntryDuration() {
+        ExpiringHashMap<Integer, String> map = new ExpiringHashMap<>(1,
+                TimeUnit.MINUTES, false, () -> time);
+        map.set(1, "minute");
+        map.set(2, "day", 1, TimeUnit.DAYS);
+        map.set(3, "second", 1, TimeUnit.SECONDS);
+        try {
+            map.set(4, "never", 0, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        time += 2 * SECOND;
+        map.cleanUp();
+        assertEquals(2, map.size());
+        time += TimeUnit.MINUTES.toNanos(1);
+        map.cleanUp();
+        assertEquals(1, map.size());
+        time += TimeUnit.HOURS.toNanos(23);
+        assertEquals("day", map.get(2));
+        time += TimeUnit.HOURS.toNanos(1);
+        map.cleanUp();
+        assertEquals(0, map.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04WheelReclaimsWithoutLookups() {
+        ExpiringHashMap<Integer, Integer> map = new ExpiringHashMap<>(30,
+                TimeUnit.SECONDS, false, () -> time);
+        for (int i = 0; i < 1000; i++) {
+            map.set(i, i);
+            time += SECOND / 10;
+        }
+        // Written over 100 seconds, so by now the first 701 have expired.
+        // Only the wheel's current bucket of about a second is left over.
+        map.cleanUp();
+        assertTrue(map.size() <= 299 + 20);
+        assertTrue(map.size() >= 299);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i > 700, map.contains(i));
+        }
+        assertEquals(299, map.size());
+        assertEquals(299, map.keySet().size());
+
+        time += TimeUnit.DAYS.toNanos(365);
+        map.cleanUp();
+        assertEquals(0, map.size());
+        assertEquals(0, map.values().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test05RandomOperations() {
+        ExpiringHashMap<Integer, Integer> map = new ExpiringHashMap<>(5,
+                TimeUnit.SECONDS, true, () -> time);
+        java.util.HashMap<Integer, Integer> values = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> deadlines =
+                new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            time += random.nextInt((int) SECOND / 50);
+            int key = random.nextInt(200);
+            Long deadline = deadlines.get(key);
+            boolean live = deadline != null && deadline > time;
+            switch (random.nextInt(4)) {
+            case 0:
+                assertEquals(live ? values.get(key) : null, map.set(key, i));
+                values.put(key, i);
+                deadlines.put(key, time + 5 * SECOND);
+                break;
+            case 1:
+                if (live) {
+                    assertEquals(values.get(key), map.delete(key));
+                    deadlines.remove(key);
+                }
+                break;
+            case 2:
+                if (live) {
+                    assertEquals(values.get(key), map.get(key));
+                    deadlines.put(key, time + 5 * SECOND);
+                }
+                break;
+            default:
+                assertEquals(live, map.contains(key));
+                break;
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06ReadsMoveTheWheel() {
+        ExpiringHashMap<Integer, Integer> map = new ExpiringHashMap<>(10,
+                TimeUnit.SECONDS, false, () -> time);
+        for (int i = 0; i < 10; i++) {
+            map.set(i, i);
+        }
+        assertEquals(10, map.size());
+
+        // Nothing but size runs after the clock moves past every deadline.
+        time += 12 * SECOND;
+        assertEquals(0, map.size());
+
+        map.set(1, 1);
+        time += 12 * SECOND;
+        int[] seen = {0};
+        map.forEach((k, v) -> seen[0]++);
+        assertEquals(0, seen[0]);
+
+        map.set(2, 2);
+        time += 12 * SECOND;
+        assertEquals(0, map.entryStream().count());
+    }
+}
@@ -0,0 +1,363 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A linear probing hash map that keeps its keys, values, hash codes and
+ * slot states in flat parallel arrays instead of allocating a
+ * {@code MapEntry} per entry. A probe compares the stored hash code before
+ * calling {@code equals}, and keys are only hashed once, when they are
+ * added.
+ *
+ * Probing, load factor, regrow and removed slot compaction are the same as
+ * {@code HashMap}, so a table built with the same sequence of operations
+ * has the same layout. {@code getTable()} materializes that layout as a
+ * fresh {@code MapEntry} array. Removed slots drop their key and value so
+ * they can be collected, and show up in it as removed entries holding null.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class FlatHashMap<K, V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private byte[] states;
+    private int size;
+    private int removed;
+
+    /**
+     * Create a flat hash map with no entries. The backing arrays have an
+     * initial capacity of {@code HashMap.STARTING_SIZE}.
+     */
+    public FlatHashMap() {
+        this(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create a flat hash map with no entries. The backing arrays have an
+     * initial capacity of {@code initialCapacity}.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     */
+    public FlatHashMap(int initialCapacity) {
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Replaces the backing arrays with empty ones of {@code length}.
+     *
+     * @param length length of the new arrays
+     */
+    private void allocate(int length) {
+        keys = new Object[length];
+        values = new Object[length];
+        hashes = new int[length];
+        states = new byte[length];
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * Calculates and returns the home slot for a hash code, using the same
+     * formula as {@code HashMap}.
+     *
+     * @param hashCode hash code of a key
+     * @return index of the slot the key belongs in
+     */
+    private int indexFor(int hashCode) {
+        // abs after the modulo so Integer.MIN_VALUE can't go negative.
+        return Math.abs(hashCode % keys.length);
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+
+        if (((size + 1) / (double) keys.length) > HashMap.MAX_LOAD_FACTOR) {
+            resizeBackingTable(2 * keys.length + 1);
+        } else if (((size + removed + 1) / (double) keys.length)
+                > HashMap.MAX_OCCUPIED_FACTOR) {
+            // Churn has filled the arrays with removed slots; a rebuild at
+            // the same length keeps misses from scanning them.
+            resizeBackingTable(keys.length);
+        }
+
+        return setHelper(key, value, key.hashCode());
+    }
+
+    /**
+     * Places a key, value pair in the backing arrays (does not regrow). The
+     * first removed slot on the probe sequence is reused if the key is not
+     * found before an empty slot.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @param hashCode {@code key.hashCode()}
+     * @return the old value, or null if the key was not already in the map
+     */
+    @SuppressWarnings("unchecked")
+    private V setHelper(K key, V value, int hashCode) {
+        int index = indexFor(hashCode);
+        int start = index;
+        int firstRemoved = -1;
+        do {
+            if (states[index] == EMPTY) {
+                break;
+            }
+            if (states[index] == REMOVED) {
+                if (firstRemoved == -1) {
+                    firstRemoved = index;
+                }
+            } else if (hashes[index] == hashCode
+                    && keys[index].equals(key)) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) % keys.length;
+        } while (index != start);
+
+        if (firstRemoved != -1) {
+            index = firstRemoved;
+            removed--;
+        } else if (states[index] != EMPTY) {
+            throw new IllegalStateException("Backing table is full.");
+        }
+        keys[index] = key;
+        values[index] = value;
+        hashes[index] = hashCode;
+        states[index] = FULL;
+        size++;
+        return null;
+    }
+
+    /**
+     * Finds the slot holding a live copy of {@code key}.
+     *
+     * @param key key to look for
+     * @return index of the slot, or -1 if the key is not in the map
+     */
+    private int indexOf(Object key) {
+        int hashCode = key.hashCode();
+        int index = indexFor(hashCode);
+        int start = index;
+        do {
+            if (states[index] == EMPTY) {
+                return -1;
+            }
+            if (states[index] == FULL && hashes[index] == hashCode
+                    && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) % keys.length;
+        } while (index != start);
+        return -1;
+    }
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    @SuppressWarnings("unchecked")
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        V oldValue = (V) values[index];
+        keys[index] = null;
+        values[index] = null;
+        states[index] = REMOVED;
+        size--;
+        removed++;
+        return oldValue;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return (V) values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Clears the map and resets the backing arrays to
+     * {@code HashMap.STARTING_SIZE}.
+     */
+    public void clear() {
+        allocate(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the set of keys in the map.
+     *
+     * @return set of keys in the map
+     */
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) {
+                res.add((K) keys[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the list of values in the map, in slot order.
+     *
+     * @return list of values in the map
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (states[i] == FULL) {
+                res.add((V) values[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resizes the backing arrays to {@code length}, rehashing every live
+     * entry from its stored hash code. Removed slots are dropped.
+     *
+     * @param length new length of the backing arrays
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        byte[] oldStates = states;
+        int oldSize = size;
+        allocate(length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == FULL) {
+                // Keys are distinct, so each goes in the first empty slot.
+                int index = indexFor(oldHashes[i]);
+                while (states[index] != EMPTY) {
+                    index = (index + 1) % length;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                hashes[index] = oldHashes[i];
+                states[index] = FULL;
+            }
+        }
+        size = oldSize;
+    }
+
+    /**
+     * Materializes the backing arrays as a {@code MapEntry} array with the
+     * same layout a {@code HashMap} would have. The entries are copies, so
+     * changing them does not change the map. A removed slot comes out as a
+     * removed entry with a null key and value.
+     *
+     * @return snapshot of the backing table
+     */
+    @SuppressWarnings("unchecked")
+    public MapEntry<K, V>[] getTable() {
+        MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) {
+                table[i] = new MapEntry<>((K) keys[i], (V) values[i],
+                        hashes[i]);
+            } else if (states[i] == REMOVED) {
+                table[i] = new MapEntry<>(null, null);
+                table[i].setRemoved(true);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the current load factor of the map.
+     *
+     * @return size divided by the length of the backing arrays
+     */
+    public float load() {
+        return ((float) size) / keys.length;
+    }
+
+    /**
+     * Gets the number of removed slots still taking up room in the backing
+     * arrays.
+     *
+     * @return number of removed slots
+     */
+    public int removedCount() {
+        return removed;
+    }
+}
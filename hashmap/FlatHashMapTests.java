@@ -0,0 +1,154 @@
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FlatHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FlatHashMapTests {
+
+    private FlatHashMap<Integer, String> directory;
+    private static final int TIMEOUT = 200;
+
+    @Before
+    public void setUp() {
+        directory = new FlatHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01SameLayoutAsHashMap() {
+        directory.set(8, "a");
+        directory.set(17, "b");
+        directory.set(26, "c");
+        directory.delete(17);
+        directory.set(35, "d");
+
+        MapEntry<Integer, String>[] expected =
+                (MapEntry<Integer, String>[]) new MapEntry[]{
+                        new MapEntry<>(35, "d"),
+                        new MapEntry<>(26, "c"),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        new MapEntry<>(8, "a")
+                };
+
+        assertArrayEquals(expected, directory.getTable());
+        assertEquals(3, directory.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02TableIsSnapshot() {
+        directory.set(4, "a");
+        directory.getTable()[4].setValue("b");
+        directory.getTable()[4].setRemoved(true);
+
+        assertEquals("a", directory.get(4));
+        assertTrue(directory.contains(4));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03RemovedSlotReused() {
+        directory.set(1, "a");
+        directory.set(10, "b");
+        assertEquals("a", directory.delete(1));
+        assertFalse(directory.contains(1));
+
+        assertNull(directory.set(19, "c"));
+        assertEquals(2, directory.size());
+        assertEquals("c", directory.getTable()[1].getValue());
+        assertFalse(directory.getTable()[1].isRemoved());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04Regrow() {
+        for (int i = 0; i < 7; i++) {
+            directory.set(i, "v" + i);
+        }
+
+        assertEquals(19, directory.getTable().length);
+        for (int i = 0; i < 7; i++) {
+            assertEquals("v" + i, directory.get(i));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test05GetRemoved() {
+        directory.set(3, "a");
+        directory.delete(3);
+        directory.get(3);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06MinValueHash() {
+        // (long) Integer.MAX_VALUE + 1 hashes to Integer.MIN_VALUE.
+        FlatHashMap<Long, String> map = new FlatHashMap<>();
+        long key = (long) Integer.MAX_VALUE + 1;
+        map.set(key, "a");
+        assertEquals("a", map.getTable()[2].getValue());
+        assertEquals("a", map.get(key));
+        assertEquals("a", map.delete(key));
+        assertFalse(map.contains(key));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test07DeleteDropsReferences() {
+        directory.set(2, "a");
+        directory.set(11, "b");
+        assertEquals("a", directory.delete(2));
+
+        MapEntry<Integer, String> removed = new MapEntry<>(null, null);
+        removed.setRemoved(true);
+        MapEntry<Integer, String>[] expected =
+                (MapEntry<Integer, String>[]) new MapEntry[9];
+        expected[2] = removed;
+        expected[3] = new MapEntry<>(11, "b");
+        assertArrayEquals(expected, directory.getTable());
+        assertEquals("(Removed) null: null", removed.toString());
+        assertEquals("b", directory.get(11));
+
+        assertNull(directory.set(2, "c"));
+        assertEquals("c", directory.getTable()[2].getValue());
+        assertEquals(2, directory.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test08ChurnKeepsEmptySlots() {
+        // Every key is new, so without compaction removed slots would
+        // take over the whole table.
+        for (int i = 0; i < 10000; i++) {
+            directory.set(i, "v" + i);
+            if (i >= 3) {
+                assertEquals("v" + (i - 3), directory.delete(i - 3));
+            }
+        }
+        assertEquals(3, directory.size());
+        assertEquals(9, directory.getTable().length);
+        assertTrue(directory.removedCount() + directory.size() <= 8);
+
+        int empty = 0;
+        for (MapEntry<Integer, String> entry : directory.getTable()) {
+            if (entry == null) {
+                empty++;
+            }
+        }
+        assertTrue(empty > 0);
+        assertFalse(directory.contains(-1));
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * A count-min sketch of how often keys have been seen, used by
+ * {@code CacheHashMap} to decide whether a new entry is worth keeping over
+ * the one it would evict (TinyLFU admission).
+ *
+ * Every key maps to four 4-bit counters spread across an array of longs,
+ * sixteen counters per long, and its estimated frequency is the smallest
+ * of the four. Counters stop at 15. After a sample of ten increments per
+ * cached entry every counter is halved, so old popularity fades and the
+ * sketch keeps following the current workload.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+class FrequencySketch {
+
+    private static final int COUNTERS = 4;
+    private static final long MAX_COUNT = 15;
+    // Clears the high bit of every counter after a shift right by one.
+    private static final long HALVE_MASK = 0x7777777777777777L;
+    private static final int SAMPLE_FACTOR = 10;
+    // Odd constants that pick a different counter for each row.
+    private static final int[] SEEDS = {
+        0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F
+    };
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Create a sketch sized for a cache of {@code maximumSize} entries.
+     *
+     * @param maximumSize number of entries the cache holds
+     */
+    FrequencySketch(int maximumSize) {
+        int length = Math.max(8, Integer.highestOneBit(
+                Math.max(1, maximumSize) - 1) << 1);
+        table = new long[length];
+        sampleSize = SAMPLE_FACTOR * Math.max(1, maximumSize);
+    }
+
+    /**
+     * Gets the position of one of a key's counters.
+     *
+     * @param hashCode hash code of the key
+     * @param row which of the key's counters
+     * @return index into the table times 16 plus the counter in that long
+     */
+    private int counterFor(int hashCode, int row) {
+        int h = HashMap.spread(hashCode + SEEDS[row]);
+        return h & ((table.length << 4) - 1);
+    }
+
+    /**
+     * Estimates how often a key has been seen recently.
+     *
+     * @param hashCode hash code of the key
+     * @return estimated count, from 0 to 15
+     */
+    int frequency(int hashCode) {
+        long min = MAX_COUNT;
+        for (int row = 0; row < COUNTERS; row++) {
+            int counter = counterFor(hashCode, row);
+            long count = (table[counter >>> 4] >>> ((counter & 15) << 2)) & 15;
+            min = Math.min(min, count);
+        }
+        return (int) min;
+    }
+
+    /**
+     * Records that a key was seen, halving every counter once enough keys
+     * have been recorded.
+     *
+     * @param hashCode hash code of the key
+     */
+    void increment(int hashCode) {
+        boolean added = false;
+        for (int row = 0; row < COUNTERS; row++) {
+            int counter = counterFor(hashCode, row);
+            int shift = (counter & 15) << 2;
+            int index = counter >>> 4;
+            if (((table[index] >>> shift) & 15) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & HALVE_MASK;
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -1,7 +1,24 @@
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Your implementation of HashMap.
@@ -9,11 +26,51 @@ import java.util.HashSet;
  * @author John Pratt
  * @version 1.3
  */
-public class HashMap<K, V> {
+public class HashMap<K, V> implements HashMapInterface<K, V> {
+
+    // Largest backing table in power-of-two mode; the next power of two
+    // does not fit in an int.
+    private static final int MAX_POWER_OF_TWO = 1 << 30;
+
+    // Old table slots moved per operation during an incremental resize.
+    private static final int MIGRATION_STEP = 8;
+
+    // Left in old table slots that have been moved to the new table.
+    private static final MapEntry<?, ?> MOVED = new MapEntry<>(null, null);
+
+    // Smallest putAll, or resize of a map holding this many entries, that is
+    // spread across the common fork/join pool.
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Turns on fail-fast checks in the views and cursors. Set with
+    // -Dhashmap.debug=true; being a constant, the checks compile away when
+    // it is off.
+    static final boolean DEBUG = Boolean.getBoolean("hashmap.debug");
+
+    // Turns on the probe and resize counters behind metrics(). Set with
+    // -Dhashmap.metrics=true; like DEBUG, the counting compiles away when
+    // it is off.
+    static final boolean METRICS = Boolean.getBoolean("hashmap.metrics");
+
+    // Smallest range of slots a spliterator will split.
+    private static final int MIN_SPLIT = 1 << 10;
 
-    // Do not make any new instance variables.
     private MapEntry<K, V>[] table;
     private int size;
+    private int removed;
+    private final boolean powerOfTwo;
+    private final boolean incremental;
+    // Table being moved into table during an incremental resize, or null.
+    private MapEntry<K, V>[] oldTable;
+    private int migrated;
+    // Bumped by every change that adds or removes an entry or replaces the
+    // table, so views can notice changes made behind their back.
+    private int modCount;
+    // Counters behind metrics(), or null when METRICS is off.
+    private final HashMapMetrics.Recorder recorder =
+            METRICS ? new HashMapMetrics.Recorder() : null;
+    // Slots the last findIn looked at; only kept when METRICS is on.
+    private int lastProbes;
 
     /**
      * Create a hash map with no entries. The backing array has an initial
@@ -23,6 +80,9 @@ public class HashMap<K, V> {
      *
      * Use constructor chaining.
      */
+    public HashMap() {
+        this(STARTING_SIZE);
+    }
 
     /**
      * Create a hash map with no entries. The backing array has an initial
@@ -33,33 +93,455 @@ public class HashMap<K, V> {
      * @param initialCapacity initial capacity of the backing array
      */
     public HashMap(int initialCapacity) {
-        table = (MapEntry<K, V>[]) new MapEntry[initialCapacity];
+        this(initialCapacity, false);
+    }
+
+    /**
+     * Create a hash map with no entries, choosing how slots are indexed.
+     *
+     * With {@code powerOfTwo} false the table uses the original layout:
+     * "hash = key.hashCode % tableLength" and odd regrow sizes. With it
+     * true every capacity is rounded up to a power of two, hash codes are
+     * mixed before use and slots are picked with a bit mask instead of a
+     * modulo.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param powerOfTwo whether to use power-of-two capacities
+     */
+    public HashMap(int initialCapacity, boolean powerOfTwo) {
+        this(initialCapacity, powerOfTwo, false);
+    }
+
+    /**
+     * Create a hash map with no entries, choosing how slots are indexed and
+     * how the table regrows.
+     *
+     * With {@code incremental} true, a regrow triggered by {@code set} only
+     * allocates the new table. The entries of the old table are then moved
+     * {@code MIGRATION_STEP} slots at a time by each following
+     * {@code set}, {@code delete}, {@code get} and {@code contains}, which
+     * look in both tables until the move is done. No single operation pays
+     * for rehashing the whole map. {@code getTable()} returns the new table
+     * while a move is in progress.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param powerOfTwo whether to use power-of-two capacities
+     * @param incremental whether regrows move entries incrementally
+     */
+    public HashMap(int initialCapacity, boolean powerOfTwo,
+            boolean incremental) {
+        this.powerOfTwo = powerOfTwo;
+        this.incremental = incremental;
+        table = (MapEntry<K, V>[]) new MapEntry[capacityFor(initialCapacity)];
         size = 0;
     }
 
     /**
-     * Calculates and returns a hash value for {@code key}. The formula used
-     * is "hash = key.hashCode % tableLength".
+     * Create a hash map around a table that is already laid out, such as
+     * one read back by {@code HashMapSnapshot}. Nothing is rehashed, so
+     * every entry has to be where the probe sequence for its cached hash
+     * would find it.
+     *
+     * @param table backing array to use as is
+     * @param size number of live entries in the table
+     * @param removed number of removed entries in the table
+     * @param powerOfTwo whether the table uses power-of-two capacities
+     * @param incremental whether regrows move entries incrementally
+     */
+    HashMap(MapEntry<K, V>[] table, int size, int removed,
+            boolean powerOfTwo, boolean incremental) {
+        this.powerOfTwo = powerOfTwo;
+        this.incremental = incremental;
+        this.table = table;
+        this.size = size;
+        this.removed = removed;
+    }
+
+    /**
+     * Gets the backing array length to use for a requested capacity.
+     *
+     * @param length requested capacity
+     * @return {@code length}, or the next power of two in power-of-two mode
+     */
+    private int capacityFor(int length) {
+        if (!powerOfTwo || length <= 1) {
+            return length;
+        }
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Gets the backing array length putAll resizes to so that
+     * {@code entries} entries stay within MAX_LOAD_FACTOR. In power-of-two
+     * mode the length is clamped to {@code 1 << 30}, accepting a higher
+     * load, as long as the entries stay within MAX_OCCUPIED_FACTOR of it.
+     *
+     * @param entries number of live entries to make room for
+     * @return capacity to resize to
+     * @throws IllegalStateException if the largest table can't hold the
+     * entries
+     */
+    int capacityToFit(long entries) {
+        long max = powerOfTwo ? MAX_POWER_OF_TWO : Integer.MAX_VALUE;
+        if (entries > max * MAX_OCCUPIED_FACTOR) {
+            throw new IllegalStateException("Cannot fit " + entries
+                    + " entries in a backing table of at most " + max
+                    + " slots.");
+        }
+        return (int) Math.min(max, (long) Math.ceil(entries
+                / MAX_LOAD_FACTOR));
+    }
+
+    /**
+     * Calculates and returns the slot for an already computed hash code. The
+     * formula used is "hash = key.hashCode % tableLength", or a mixed hash
+     * masked to the table length in power-of-two mode.
+     *
+     * @param hashCode hash code of a key
+     * @param length length of the table being indexed
+     * @return index of the slot the key belongs in
+     */
+    private int indexFor(int hashCode, int length) {
+        if (powerOfTwo) {
+            return spread(hashCode) & (length - 1);
+        }
+        // abs after the modulo so Integer.MIN_VALUE can't go negative.
+        return Math.abs(hashCode % length);
+    }
+
+    /**
+     * Mixes the bits of a hash code (the murmur3 finalizer) so keys whose
+     * hash codes only differ in the high bits still land in different slots
+     * once masked.
+     *
+     * @param h hash code to mix
+     * @return mixed hash code
+     */
+    static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Gets the slot after {@code hash}, wrapping around at the end of the
+     * backing table.
+     *
+     * @param hash current slot
+     * @param length length of the table being probed
+     * @return next slot to probe
+     */
+    private static int next(int hash, int length) {
+        return hash + 1 == length ? 0 : hash + 1;
+    }
+
+    /**
+     * Checks whether an entry holds {@code key}. The cached hash codes are
+     * compared first so {@code equals} is only called on likely matches.
      *
-     * @param key key value whose hash is to be calculated.
-     * @return the hash value associated with the inputted key.
+     * @param entry entry in the backing table
+     * @param key key being looked for
+     * @param hashCode {@code key.hashCode()}
+     * @return true if the entry holds the key
      */
-    private int hash(K key) {
-        return Math.abs(key.hashCode()) % table.length;
+    private boolean matches(MapEntry<K, V> entry, K key, int hashCode) {
+        return entry.getHash() == hashCode && entry.getKey().equals(key);
     }
 
     // working (?)
     @Override
     public V set(K key, V value) {
         if (key == null || value == null) {
-            return false;
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
         }
+        migrateStep();
 
         if (((size + 1) / (double) table.length) > MAX_LOAD_FACTOR) {
-            resizeBackingTable(2 * table.length + 1);
+            regrow(powerOfTwo ? 2 * table.length : 2 * table.length + 1);
+        } else if (((size + removed + 1) / (double) table.length)
+                > MAX_OCCUPIED_FACTOR) {
+            // Churn has filled the table with removed entries; a rehash at
+            // the same length keeps misses from scanning them.
+            regrow(table.length);
+        }
+
+        int hashCode = key.hashCode();
+        if (oldTable != null) {
+            // A key still waiting to be moved is updated where it is.
+            MapEntry<K, V> entry = findIn(oldTable, key, hashCode);
+            if (entry != null) {
+                V oldValue = entry.getValue();
+                entry.setValue(value);
+                return oldValue;
+            }
+        }
+        return setHelper(key, value, hashCode);
+    }
+
+    /**
+     * Adds every entry of {@code entries}, replacing the values of keys that
+     * are already present. See {@code putAll(K[], V[])}.
+     *
+     * @param entries entries to add
+     * @throws IllegalArgumentException if entries is null or holds a null
+     * key or value, in which case the map is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Cannot add null map to hash "
+                    + "map.");
+        }
+        K[] keys = (K[]) new Object[entries.size()];
+        V[] values = (V[]) new Object[entries.size()];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        putAll(keys, values);
+    }
+
+    /**
+     * Adds {@code keys[i], values[i]} for every {@code i}, with the same
+     * result as calling {@code set} for each pair in order (a later
+     * duplicate key wins).
+     *
+     * The table is resized at most once, to fit every key as if it were
+     * new, and the entries are then placed without checking the load after
+     * each one. At least {@code PARALLEL_THRESHOLD} entries are hashed and
+     * placed in parallel on the common fork/join pool.
+     *
+     * @param keys keys to add
+     * @param values values to add, matching keys by index
+     * @throws IllegalArgumentException if the arrays are null, differ in
+     * length or hold a null, in which case the map is unchanged
+     * @throws IllegalStateException if the entries can't fit in the largest
+     * backing table, in which case the map is unchanged
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys == null || values == null || keys.length != values.length) {
+            throw new IllegalArgumentException("Cannot add keys and values "
+                    + "that are null or of different lengths to hash map.");
+        }
+        boolean parallel = keys.length >= PARALLEL_THRESHOLD;
+        int[] hashCodes = new int[keys.length];
+        IntStream indexes = IntStream.range(0, keys.length);
+        (parallel ? indexes.parallel() : indexes).forEach(i -> {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException("Cannot add null key or "
+                        + "value to hash map.");
+            }
+            hashCodes[i] = keys[i].hashCode();
+        });
+
+        finishMigration();
+        long needed = (long) size + keys.length;
+        if (needed / (double) table.length > MAX_LOAD_FACTOR) {
+            resizeBackingTable(capacityToFit(needed));
+        } else if ((needed + removed) / (double) table.length
+                > MAX_OCCUPIED_FACTOR || (parallel && removed > 0)) {
+            resizeBackingTable(table.length);
+        }
+
+        if (parallel) {
+            MapEntry<K, V>[] entries =
+                    (MapEntry<K, V>[]) new MapEntry[keys.length];
+            IntStream.range(0, keys.length).parallel().forEach(i ->
+                    entries[i] = newEntry(keys[i], values[i],
+                            hashCodes[i]));
+            parallelPlace(entries, false);
+            return;
         }
+        for (int i = 0; i < keys.length; i++) {
+            setHelper(keys[i], values[i], hashCodes[i]);
+        }
+    }
+
+    /**
+     * Places entries into a table with no removed entries by splitting the
+     * table into ranges of slots, one fork/join task per range.
+     *
+     * The entries are first grouped by the range their home slot is in,
+     * with a parallel counting sort that keeps their order. Each task then
+     * places its group, probing only inside its range, so no two tasks
+     * touch the same slot. Entries that run off the end of their range are
+     * placed one at a time once every task is done. Filling empty slots in
+     * any order leaves no gap in any probe sequence, so the table stays
+     * valid.
+     *
+     * @param source entries to place, in order; null and removed ones are
+     * skipped
+     * @param distinct true if the keys are known to be unique and absent
+     * from the table, as when rehashing. Otherwise a later duplicate
+     * replaces the value of an earlier one and {@code size} counts the new
+     * keys.
+     */
+    private void parallelPlace(MapEntry<K, V>[] source, boolean distinct) {
+        MapEntry<K, V>[] dest = table;
+        int length = dest.length;
+        int tasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+        int ranges = Math.min(length, tasks);
+        int chunks = Math.max(1, Math.min(source.length, tasks));
+
+        // counts[c * ranges + r] is how many entries of source chunk c have
+        // their home slot in range r; it then becomes where they go.
+        int[] counts = new int[chunks * ranges];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int end = (int) ((long) (c + 1) * source.length / chunks);
+            for (int i = (int) ((long) c * source.length / chunks); i < end;
+                    i++) {
+                MapEntry<K, V> entry = source[i];
+                if (entry != null && !entry.isRemoved()) {
+                    counts[c * ranges + rangeOf(entry, ranges, length)]++;
+                }
+            }
+        });
+        int[] rangeStart = new int[ranges + 1];
+        int total = 0;
+        for (int r = 0; r < ranges; r++) {
+            rangeStart[r] = total;
+            for (int c = 0; c < chunks; c++) {
+                int count = counts[c * ranges + r];
+                counts[c * ranges + r] = total;
+                total += count;
+            }
+        }
+        rangeStart[ranges] = total;
+        MapEntry<K, V>[] order = (MapEntry<K, V>[]) new MapEntry[total];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int end = (int) ((long) (c + 1) * source.length / chunks);
+            for (int i = (int) ((long) c * source.length / chunks); i < end;
+                    i++) {
+                MapEntry<K, V> entry = source[i];
+                if (entry != null && !entry.isRemoved()) {
+                    order[counts[c * ranges
+                            + rangeOf(entry, ranges, length)]++] = entry;
+                }
+            }
+        });
 
-        return setHelper(key, value);
+        List<List<MapEntry<K, V>>> spilled = new ArrayList<>();
+        for (int r = 0; r < ranges; r++) {
+            spilled.add(new ArrayList<>());
+        }
+        int added = IntStream.range(0, ranges).parallel().map(r -> {
+            // Slot s is in range floor(s * ranges / length).
+            int end = (int) (((long) (r + 1) * length + ranges - 1) / ranges);
+            int count = 0;
+            for (int o = rangeStart[r]; o < rangeStart[r + 1]; o++) {
+                MapEntry<K, V> entry = order[o];
+                int hash = indexFor(entry.getHash(), length);
+                while (true) {
+                    if (hash == end) {
+                        spilled.get(r).add(entry);
+                        break;
+                    }
+                    MapEntry<K, V> curr = dest[hash];
+                    if (curr == null) {
+                        dest[hash] = entry;
+                        count++;
+                        break;
+                    }
+                    if (!distinct && matches(curr, entry.getKey(),
+                            entry.getHash())) {
+                        curr.setValue(entry.getValue());
+                        break;
+                    }
+                    hash++;
+                }
+            }
+            return count;
+        }).sum();
+
+        if (!distinct) {
+            size += added;
+            modCount++;
+        }
+        for (List<MapEntry<K, V>> range : spilled) {
+            for (MapEntry<K, V> entry : range) {
+                if (distinct) {
+                    place(entry);
+                } else {
+                    setHelper(entry.getKey(), entry.getValue(),
+                            entry.getHash());
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the range of slots an entry's home slot falls in when a table is
+     * split into equal ranges.
+     *
+     * @param entry entry with a cached hash
+     * @param ranges number of ranges
+     * @param length length of the table
+     * @return index of the range
+     */
+    private int rangeOf(MapEntry<K, V> entry, int ranges, int length) {
+        return (int) ((long) indexFor(entry.getHash(), length) * ranges
+                / length);
+    }
+
+    /**
+     * Rehashes into a table of {@code length}, either right away or, in
+     * incremental mode, by starting a move that later operations finish.
+     *
+     * @param length length of the new backing table
+     */
+    private void regrow(int length) {
+        if (!incremental) {
+            resizeBackingTable(length);
+            return;
+        }
+        long start = METRICS ? System.nanoTime() : 0;
+        finishMigration();
+        modCount++;
+        oldTable = table;
+        table = (MapEntry<K, V>[]) new MapEntry[capacityFor(length)];
+        migrated = 0;
+        if (METRICS) {
+            recorder.resized(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Moves the next {@code MIGRATION_STEP} slots of the old table into the
+     * backing table, if an incremental resize is in progress. Removed entries
+     * are dropped instead of moved.
+     */
+    private void migrateStep() {
+        if (oldTable == null) {
+            return;
+        }
+        int end = Math.min(migrated + MIGRATION_STEP, oldTable.length);
+        for (; migrated < end; migrated++) {
+            MapEntry<K, V> entry = oldTable[migrated];
+            if (entry != null) {
+                if (entry.isRemoved()) {
+                    removed--;
+                } else {
+                    place(entry);
+                }
+                oldTable[migrated] = (MapEntry<K, V>) MOVED;
+            }
+        }
+        if (migrated == oldTable.length) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * Moves every remaining slot of an incremental resize.
+     */
+    private void finishMigration() {
+        while (oldTable != null) {
+            migrateStep();
+        }
     }
 
     /**
@@ -68,94 +550,212 @@ public class HashMap<K, V> {
      *
      * @param key key to add into the HashMap
      * @param value value to add into the HashMap
+     * @param hashCode {@code key.hashCode()}
      * @return null if the key was not already in the map.  If it was in the
      * map, return the old value associated with it
      */
-    private boolean setHelper(K key, V value) {
+    private V setHelper(K key, V value, int hashCode) {
         // When actually adding, we'll loop the backing array until we arrive
-        // back at the position we started at.
-        int hash = hash(key);
+        // back at the position we started at, remembering the first removed
+        // entry in case the key turns out not to be in the map.
+        int hash = indexFor(hashCode, table.length);
         int startHash = hash;
-        V oldValue;
-        boolean keymatch;
+        MapEntry<K, V> firstRemoved = null;
         MapEntry<K, V> curr;
         do {
             curr = table[hash];
-            // If we find an empty spot, add the entry to this spot and return
-            // false.
             if (curr == null) {
-                table[hash] = new MapEntry<>(key, value);
-                size++;
-                return false;
+                break;
             }
-
-            keymatch = curr == null ? false : curr.getKey().equals(key);
-            if (curr != null && (keymatch || curr.isRemoved())) {
-                if (!keymatch || curr.isRemoved()) {
-                    size++;
+            if (matches(curr, key, hashCode)) {
+                if (!curr.isRemoved()) {
+                    V oldValue = curr.getValue();
+                    curr.setValue(value);
+                    return oldValue;
+                }
+                // A removed copy of the key means it can't be further along.
+                if (firstRemoved == null) {
+                    firstRemoved = curr;
                 }
-                boolean rem = curr.isRemoved();
-                curr.setRemoved(false);
-                oldValue = curr.getValue();
-                curr.setValue(value);
-                return rem && !keymatch ? null : oldValue;
+                break;
+            }
+            if (curr.isRemoved() && firstRemoved == null) {
+                firstRemoved = curr;
             }
-            hash = (hash + 1) % table.length;
+            hash = next(hash, table.length);
         } while (hash != startHash);
-        // This scenario isn't really possible, since it would only happen if
-        // the backing array was full of entries whose keys were not equal to
-        // the inputted key.
-        return false;
+
+        MapEntry<K, V> entry;
+        if (firstRemoved != null) {
+            entry = firstRemoved;
+            entry.setKey(key, hashCode);
+            entry.setValue(value);
+            entry.setRemoved(false);
+            removed--;
+        } else if (curr == null) {
+            entry = newEntry(key, value, hashCode);
+            table[hash] = entry;
+        } else {
+            // This scenario isn't really possible, since it would only happen
+            // if the backing array was full of entries whose keys were not
+            // equal to the inputted key.
+            throw new IllegalStateException("Backing table is full.");
+        }
+        size++;
+        modCount++;
+        inserted(entry);
+        return null;
     }
 
-    // working (?)
-    @Override
-    public V delete(K key) {
-        if (key == null) {
-            throw new IllegalArgumentException("Cannot remove null key from "
-                    + "hash map.");
+    /**
+     * Creates the entry for a key that has no slot in the table yet.
+     * Subclasses that keep more state per entry return their own type.
+     *
+     * @param key key of the entry
+     * @param value value of the entry
+     * @param hashCode {@code key.hashCode()}
+     * @return a new entry
+     */
+    MapEntry<K, V> newEntry(K key, V value, int hashCode) {
+        return new MapEntry<>(key, value, hashCode);
+    }
+
+    /**
+     * Called after {@code set} adds a key that was not in the map, with the
+     * entry now holding it, which may be a reused removed entry. Does
+     * nothing here.
+     *
+     * @param entry entry holding the new key
+     */
+    void inserted(MapEntry<K, V> entry) {
+    }
+
+    /**
+     * Finds the entry holding a live copy of {@code key}, looking in the old
+     * table too while an incremental resize is in progress.
+     *
+     * @param key key to look for
+     * @return the entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> find(K key) {
+        int hashCode = key.hashCode();
+        MapEntry<K, V> entry = findIn(table, key, hashCode);
+        int probes = lastProbes;
+        if (entry == null && oldTable != null) {
+            entry = findIn(oldTable, key, hashCode);
+            probes += lastProbes;
+        }
+        if (METRICS) {
+            recorder.lookup(entry != null, probes);
         }
+        return entry;
+    }
 
-        int hash = hash(key);
+    /**
+     * Finds the entry holding a live copy of {@code key} in one table. Stops
+     * at the first null slot.
+     *
+     * @param entries table to search
+     * @param key key to look for
+     * @param hashCode {@code key.hashCode()}
+     * @return the entry, or null if the key is not in that table
+     */
+    private MapEntry<K, V> findIn(MapEntry<K, V>[] entries, K key,
+            int hashCode) {
+        int hash = indexFor(hashCode, entries.length);
         int startHash = hash;
         MapEntry<K, V> curr;
+        int probes = 0;
         do {
-            curr = table[hash];
-            if (curr == null || (curr.isRemoved()
-                    && curr.getKey().equals(key))) {
-                throw new NoSuchElementException("Attempted to remove key that "
-                        + "was not contained within the hash map.");
+            curr = entries[hash];
+            probes++;
+            if (curr == null) {
+                break;
             }
-            if (table[hash].getKey().equals(key)) {
-                table[hash].setRemoved(true);
-                size--;
-                return table[hash].getValue();
+            if (curr != MOVED && matches(curr, key, hashCode)) {
+                if (METRICS) {
+                    lastProbes = probes;
+                }
+                return curr.isRemoved() ? null : curr;
             }
-            hash = (hash + 1) % table.length;
+            hash = next(hash, entries.length);
         } while (startHash != hash);
-        throw new NoSuchElementException("Attempted to remove key that "
-                + "was not contained within the hash map.");
+        if (METRICS) {
+            lastProbes = probes;
+        }
+        return null;
+    }
+
+    // working (?)
+    @Override
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+        migrateStep();
+
+        MapEntry<K, V> entry = find(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        return expunge(entry);
+    }
+
+    /**
+     * Removes the entry with the given key from the map. Same as
+     * {@code delete}, under the name earlier callers use.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    public V remove(K key) {
+        return delete(key);
+    }
+
+    /**
+     * Marks a live entry as removed, leaving it in its slot like
+     * {@code delete} does.
+     *
+     * @param entry live entry in the table or the old table
+     * @return the entry's value
+     */
+    V expunge(MapEntry<K, V> entry) {
+        entry.setRemoved(true);
+        size--;
+        removed++;
+        modCount++;
+        return entry.getValue();
+    }
+
+    /**
+     * Finds the entry holding a live copy of {@code key}, taking a step of
+     * any incremental resize first as {@code get} does.
+     *
+     * @param key key to look for, not null
+     * @return the entry, or null if the key is not in the map
+     */
+    MapEntry<K, V> liveEntry(K key) {
+        migrateStep();
+        return find(key);
     }
 
     // working (?)
     @Override
     public V get(K key) {
         if (key == null) {
-            return null;
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
         }
+        migrateStep();
 
-        int hash = hash(key);
-        int startHash = hash;
-        do {
-            if (table[hash] == null) {
-                return null;
-            }
-            if (table[hash].getKey().equals(key)) {
-                return table[hash].getValue();
-            }
-            hash = (hash + 1) % table.length;
-        } while (startHash != hash);
-        return null;
+        MapEntry<K, V> entry = find(key);
+        if (entry == null) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return entry.getValue();
     }
 
     @Override
@@ -164,26 +764,19 @@ public class HashMap<K, V> {
             throw new IllegalArgumentException("Cannot check if null key is "
                     + "in hash map.");
         }
+        migrateStep();
 
-        int hash = hash(key);
-        int startHash = hash;
-        do {
-            if (table[hash] == null) {
-                return false;
-            }
-            if (table[hash].getKey().equals(key)) {
-                return true;
-            }
-            hash = (hash + 1) % table.length;
-        } while (startHash != hash);
-        return false;
+        return find(key) != null;
     }
 
     // FIXME
     @Override
     public void clear() {
         size = 0;
-        table = (MapEntry<K, V>[]) new MapEntry[STARTING_SIZE];
+        removed = 0;
+        modCount++;
+        oldTable = null;
+        table = (MapEntry<K, V>[]) new MapEntry[capacityFor(STARTING_SIZE)];
     }
 
     // working (?)
@@ -197,10 +790,17 @@ public class HashMap<K, V> {
     public Set<K> keySet() {
         Set<K> res = new HashSet<>();
         for (int i = 0; i < table.length; i++) {
-            if (table[i] != null) {
+            if (table[i] != null && !table[i].isRemoved()) {
                 res.add(table[i].getKey());
             }
         }
+        if (oldTable != null) {
+            for (int i = migrated; i < oldTable.length; i++) {
+                if (oldTable[i] != null && !oldTable[i].isRemoved()) {
+                    res.add(oldTable[i].getKey());
+                }
+            }
+        }
         return res;
     }
 
@@ -209,13 +809,504 @@ public class HashMap<K, V> {
     public List<V> values() {
         List<V> res = new ArrayList<>();
         for (int i = 0; i < table.length; i++) {
-            if (table[i] != null) {
+            if (table[i] != null && !table[i].isRemoved()) {
                 res.add(table[i].getValue());
             }
         }
+        if (oldTable != null) {
+            for (int i = migrated; i < oldTable.length; i++) {
+                if (oldTable[i] != null && !oldTable[i].isRemoved()) {
+                    res.add(oldTable[i].getValue());
+                }
+            }
+        }
         return res;
     }
 
+    /**
+     * Calls {@code action} with every key, value pair in slot order, without
+     * allocating anything. An incremental resize in progress is finished
+     * first. Adding or removing keys from {@code action} is not supported;
+     * in debug mode it throws a {@code ConcurrentModificationException}.
+     *
+     * @param action action to call with each key and value
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Cannot call null action.");
+        }
+        finishMigration();
+        int expectedModCount = modCount;
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null && !entry.isRemoved()) {
+                action.accept(entry.getKey(), entry.getValue());
+                if (DEBUG) {
+                    checkModCount(expectedModCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a cursor positioned before the first entry. See {@code Cursor}.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Gets a live view of the keys, backed by the table. Nothing is copied;
+     * the view follows later changes to the map and removing from it
+     * removes from the map. Its iterators walk the table directly and, in
+     * debug mode, are fail-fast.
+     *
+     * @return view of the keys
+     */
+    public Set<K> keyView() {
+        return new KeyView();
+    }
+
+    /**
+     * Gets a live view of the values, backed by the table. Nothing is
+     * copied; the view follows later changes to the map and removing from
+     * it removes from the map. Its iterators walk the table directly and, in
+     * debug mode, are fail-fast.
+     *
+     * @return view of the values
+     */
+    public Collection<V> valueView() {
+        return new ValueView();
+    }
+
+    /**
+     * Gets a spliterator over the live entries of the table, in slot order.
+     * It splits the table by slot range, so a parallel stream walks the
+     * table itself with no intermediate copy. The first spliterator is
+     * SIZED with the exact size; after a split each half estimates its
+     * size from the share of the table it covers.
+     *
+     * The entries handed out are the table's own, so they must not be
+     * changed other than through {@code setValue}. An incremental resize
+     * in progress is finished first. Adding or removing keys while the
+     * spliterator is in use is not supported; in debug mode it makes the
+     * spliterator throw a {@code ConcurrentModificationException}.
+     *
+     * @return spliterator over the entries
+     */
+    public Spliterator<MapEntry<K, V>> spliterator() {
+        finishMigration();
+        return new TableSpliterator(table, 0, table.length, size, true);
+    }
+
+    /**
+     * Gets a sequential stream over the live entries of the table. Call
+     * {@code parallel()} on it to split the table across the common
+     * fork/join pool. See {@code spliterator()}.
+     *
+     * @return stream of the entries
+     */
+    public Stream<MapEntry<K, V>> entryStream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Calls {@code action} with every key, value pair, spread across the
+     * common fork/join pool when the map holds at least
+     * {@code PARALLEL_THRESHOLD} entries. The action must be safe to call
+     * from several threads at once, and no order is guaranteed.
+     *
+     * @param action action to call with each key and value
+     */
+    public void parallelForEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Cannot call null action.");
+        }
+        Stream<MapEntry<K, V>> entries = entryStream();
+        if (size >= PARALLEL_THRESHOLD) {
+            entries = entries.parallel();
+        }
+        entries.forEach(entry -> action.accept(entry.getKey(),
+                entry.getValue()));
+    }
+
+    /**
+     * Transforms every key, value pair and combines the results, spread
+     * across the common fork/join pool when the map holds at least
+     * {@code PARALLEL_THRESHOLD} entries.
+     *
+     * @param transformer turns a key and value into a result
+     * @param identity result for an empty map, and identity of reducer
+     * @param reducer associative function combining two results
+     * @param <U> type of the results
+     * @return the combined result
+     */
+    public <U> U reduce(BiFunction<? super K, ? super V, ? extends U>
+            transformer, U identity, BinaryOperator<U> reducer) {
+        if (transformer == null || reducer == null) {
+            throw new IllegalArgumentException("Cannot reduce with null "
+                    + "functions.");
+        }
+        Stream<MapEntry<K, V>> entries = entryStream();
+        if (size >= PARALLEL_THRESHOLD) {
+            entries = entries.parallel();
+        }
+        return entries.<U>map(entry -> transformer.apply(entry.getKey(),
+                entry.getValue())).reduce(identity, reducer);
+    }
+
+    /**
+     * Splits a range of table slots and hands out the live entries in it.
+     */
+    private final class TableSpliterator
+            implements Spliterator<MapEntry<K, V>> {
+        private final MapEntry<K, V>[] entries;
+        private int index;
+        private int fence;
+        private long estimate;
+        private boolean exact;
+        private final int expectedModCount;
+
+        /**
+         * Create a spliterator over slots {@code [origin, fence)}.
+         *
+         * @param entries table to walk
+         * @param origin first slot
+         * @param fence slot after the last
+         * @param estimate number of live entries expected in the range
+         * @param exact whether the estimate is the exact count
+         */
+        TableSpliterator(MapEntry<K, V>[] entries, int origin, int fence,
+                long estimate, boolean exact) {
+            this.entries = entries;
+            this.index = origin;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.exact = exact;
+            this.expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MapEntry<K, V>> action) {
+            while (index < fence) {
+                MapEntry<K, V> entry = entries[index++];
+                if (entry != null && !entry.isRemoved()) {
+                    if (estimate > 0) {
+                        estimate--;
+                    }
+                    action.accept(entry);
+                    if (DEBUG) {
+                        checkModCount(expectedModCount);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(
+                Consumer<? super MapEntry<K, V>> action) {
+            for (; index < fence; index++) {
+                MapEntry<K, V> entry = entries[index];
+                if (entry != null && !entry.isRemoved()) {
+                    action.accept(entry);
+                }
+            }
+            estimate = 0;
+            if (DEBUG) {
+                checkModCount(expectedModCount);
+            }
+        }
+
+        @Override
+        public Spliterator<MapEntry<K, V>> trySplit() {
+            int length = fence - index;
+            if (length < 2 * MIN_SPLIT) {
+                return null;
+            }
+            int mid = index + length / 2;
+            // Entries are assumed spread evenly over the slots.
+            long half = estimate / 2;
+            Spliterator<MapEntry<K, V>> prefix = new TableSpliterator(entries,
+                    index, mid, estimate - half, false);
+            index = mid;
+            estimate = half;
+            exact = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | (exact ? SIZED : 0);
+        }
+    }
+
+    /**
+     * Throws if the map has been changed since a view or cursor started.
+     *
+     * @param expectedModCount modCount when the view or cursor started
+     */
+    private void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException("Hash map was changed "
+                    + "during iteration.");
+        }
+    }
+
+    /**
+     * Walks the entries of the table in slot order. The cursor stands in
+     * for the current entry, so a traversal allocates nothing but the
+     * cursor, which {@code reset()} rewinds for reuse.
+     *
+     * An incremental resize in progress is finished when the cursor is
+     * created or reset. Values can be replaced with {@code setValue}; adding
+     * or removing keys while the cursor is in use is not supported, and in
+     * debug mode makes the cursor throw a
+     * {@code ConcurrentModificationException}.
+     */
+    public final class Cursor {
+        private MapEntry<K, V>[] entries;
+        private MapEntry<K, V> current;
+        private int index;
+        private int expectedModCount;
+
+        /**
+         * Create a cursor positioned before the first entry.
+         */
+        private Cursor() {
+            reset();
+        }
+
+        /**
+         * Moves the cursor back to before the first entry.
+         */
+        public void reset() {
+            finishMigration();
+            entries = table;
+            current = null;
+            index = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Moves the cursor to the next entry.
+         *
+         * @return true if there was a next entry, false at the end
+         */
+        public boolean next() {
+            if (DEBUG) {
+                checkModCount(expectedModCount);
+            }
+            while (++index < entries.length) {
+                MapEntry<K, V> entry = entries[index];
+                if (entry != null && !entry.isRemoved()) {
+                    current = entry;
+                    return true;
+                }
+            }
+            index = entries.length;
+            current = null;
+            return false;
+        }
+
+        /**
+         * Gets the key of the current entry.
+         *
+         * @return the key
+         */
+        public K key() {
+            return entry().getKey();
+        }
+
+        /**
+         * Gets the value of the current entry.
+         *
+         * @return the value
+         */
+        public V value() {
+            return entry().getValue();
+        }
+
+        /**
+         * Replaces the value of the current entry.
+         *
+         * @param value new value
+         * @return the old value
+         */
+        public V setValue(V value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Cannot add null value to "
+                        + "hash map.");
+            }
+            MapEntry<K, V> entry = entry();
+            V oldValue = entry.getValue();
+            entry.setValue(value);
+            return oldValue;
+        }
+
+        /**
+         * Gets the current entry.
+         *
+         * @return the entry the cursor is on
+         */
+        private MapEntry<K, V> entry() {
+            if (current == null) {
+                throw new NoSuchElementException("Cursor is not on an "
+                        + "entry.");
+            }
+            if (DEBUG) {
+                checkModCount(expectedModCount);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Iterates the live entries of the table in slot order, handing out one
+     * part of each. Removing through the iterator deletes from the map.
+     *
+     * @param <T> type handed out for each entry
+     */
+    private abstract class ViewIterator<T> implements Iterator<T> {
+        private final MapEntry<K, V>[] entries;
+        private int next = -1;
+        private MapEntry<K, V> last;
+        private int expectedModCount;
+
+        /**
+         * Create an iterator over the table, finishing any incremental
+         * resize first.
+         */
+        ViewIterator() {
+            finishMigration();
+            entries = table;
+            expectedModCount = modCount;
+            advance();
+        }
+
+        /**
+         * Moves {@code next} to the following live entry, or the end.
+         */
+        private void advance() {
+            do {
+                next++;
+            } while (next < entries.length
+                    && (entries[next] == null || entries[next].isRemoved()));
+        }
+
+        /**
+         * Gets the part of an entry this iterator hands out.
+         *
+         * @param entry a live entry
+         * @return its key or value
+         */
+        abstract T extract(MapEntry<K, V> entry);
+
+        @Override
+        public boolean hasNext() {
+            return next < entries.length;
+        }
+
+        @Override
+        public T next() {
+            if (DEBUG) {
+                checkModCount(expectedModCount);
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more entries.");
+            }
+            last = entries[next];
+            advance();
+            return extract(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("Nothing to remove.");
+            }
+            if (DEBUG) {
+                checkModCount(expectedModCount);
+            }
+            delete(last.getKey());
+            last = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Live view of the keys.
+     */
+    private final class KeyView extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return o != null && HashMap.this.contains((K) o);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            delete((K) o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            HashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new ViewIterator<K>() {
+                @Override
+                K extract(MapEntry<K, V> entry) {
+                    return entry.getKey();
+                }
+            };
+        }
+    }
+
+    /**
+     * Live view of the values.
+     */
+    private final class ValueView extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            HashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ViewIterator<V>() {
+                @Override
+                V extract(MapEntry<K, V> entry) {
+                    return entry.getValue();
+                }
+            };
+        }
+    }
+
     @Override
     public void resizeBackingTable(int length) {
         if (length <= 0 || length < size) {
@@ -223,16 +1314,41 @@ public class HashMap<K, V> {
                     + "to negative length or length less than current number "
                     + "of elements inside the hash map.");
         }
+        long start = METRICS ? System.nanoTime() : 0;
+        finishMigration();
+        modCount++;
         MapEntry<K, V>[] tableCopy = table;
-        table = (MapEntry<K, V>[]) new MapEntry[length];
-        MapEntry<K, V> tmp;
-        for (int i = 0; i < tableCopy.length; i++) {
-            tmp = tableCopy[i];
-            if (tmp != null && !tmp.isRemoved()) {
-                addHelper(tmp.getKey(), tmp.getValue());
-                size--; // counteracts the incrementation of size
+        table = (MapEntry<K, V>[]) new MapEntry[capacityFor(length)];
+        removed = 0;
+        if (size >= PARALLEL_THRESHOLD) {
+            parallelPlace(tableCopy, true);
+        } else {
+            MapEntry<K, V> tmp;
+            for (int i = 0; i < tableCopy.length; i++) {
+                tmp = tableCopy[i];
+                if (tmp != null && !tmp.isRemoved()) {
+                    place(tmp);
+                }
             }
         }
+        if (METRICS) {
+            recorder.resized(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Moves a live entry into the first null slot of its probe sequence.
+     * Keys are already unique and the cached hash is reused, so neither
+     * {@code hashCode} nor {@code equals} is called.
+     *
+     * @param entry entry from the old backing table
+     */
+    private void place(MapEntry<K, V> entry) {
+        int hash = indexFor(entry.getHash(), table.length);
+        while (table[hash] != null) {
+            hash = next(hash, table.length);
+        }
+        table[hash] = entry;
     }
 
     //private void
@@ -244,7 +1360,133 @@ public class HashMap<K, V> {
     }
 
     public float load() {
-        return ((float) size) / table.length
+        return ((float) size) / table.length;
+    }
+
+    /**
+     * Gets the number of removed entries still taking up slots in the
+     * backing table.
+     *
+     * @return number of removed entries
+     */
+    public int removedCount() {
+        return removed;
+    }
+
+    /**
+     * Takes a snapshot of the map's metrics.
+     *
+     * The table layout figures (removed entries, clusters and how many
+     * keys share each home slot) are worked out by scanning the backing
+     * table, so this is O(capacity) and best called now and then rather
+     * than per operation. During an incremental resize the entries not
+     * moved yet are counted in the slots they will be moved to, so the
+     * figures describe the table once the move is done. The probe
+     * histograms and resize figures are only counted when {@code METRICS}
+     * is on and are zero otherwise.
+     *
+     * The map is only read, so a monitoring thread may call this, but the
+     * figures can then be slightly inconsistent with each other.
+     *
+     * @return the current metrics
+     */
+    public HashMapMetrics metrics() {
+        MapEntry<K, V>[] entries = table;
+        MapEntry<K, V>[] moving = oldTable;
+        int length = entries.length;
+        int[] homes = new int[length];
+        boolean[] taken = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            MapEntry<K, V> entry = entries[i];
+            if (entry != null) {
+                taken[i] = true;
+                if (!entry.isRemoved()) {
+                    homes[indexFor(entry.getHash(), length)]++;
+                }
+            }
+        }
+        if (moving != null) {
+            // Put the entries still to be moved where place would.
+            for (int i = migrated; i < moving.length; i++) {
+                MapEntry<K, V> entry = moving[i];
+                if (entry == null || entry == MOVED || entry.isRemoved()) {
+                    continue;
+                }
+                int home = indexFor(entry.getHash(), length);
+                homes[home]++;
+                int slot = home;
+                for (int probes = 0; taken[slot] && probes < length;
+                        probes++) {
+                    slot = next(slot, length);
+                }
+                taken[slot] = true;
+            }
+        }
+        int clusters = 0;
+        int longest = 0;
+        int leading = -1;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            if (!taken[i]) {
+                if (leading < 0) {
+                    leading = i;
+                }
+                run = 0;
+                continue;
+            }
+            if (run++ == 0) {
+                clusters++;
+            }
+            longest = Math.max(longest, run);
+        }
+        if (leading < 0) {
+            // No empty slot at all: one cluster covering the whole table.
+            longest = length;
+        } else if (leading > 0 && run > 0) {
+            // The cluster at the end wraps around into the one at the start.
+            clusters--;
+            longest = Math.max(longest, leading + run);
+        }
+        return new HashMapMetrics(size, length, removed, clusters, longest,
+                homes, recorder);
+    }
+
+    /**
+     * Gets the counters behind {@code metrics()}.
+     *
+     * @return the counters, or null when METRICS is off
+     */
+    HashMapMetrics.Recorder recorder() {
+        return recorder;
+    }
+
+    /**
+     * Finishes any incremental resize in progress, so every entry is in the
+     * table, and gets the table.
+     *
+     * @return the backing table
+     */
+    MapEntry<K, V>[] settledTable() {
+        finishMigration();
+        return table;
+    }
+
+    /**
+     * Gets whether the table uses power-of-two capacities.
+     *
+     * @return true in power-of-two mode
+     */
+    boolean isPowerOfTwo() {
+        return powerOfTwo;
+    }
+
+    /**
+     * Gets whether regrows move entries incrementally.
+     *
+     * @return true if this map resizes incrementally
+     */
+    boolean isIncremental() {
+        return incremental;
     }
 
 }
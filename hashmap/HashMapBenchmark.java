@@ -0,0 +1,901 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Microbenchmarks for {@code HashMap} and the other maps in this directory,
+ * with {@code java.util.HashMap} as the baseline.
+ *
+ * Every combination of the parameters below is run. Each one gets warmup
+ * iterations followed by measured iterations, and the mean and standard
+ * deviation of ns/op over the measured iterations is printed as one row.
+ *
+ * <pre>
+ * java HashMapBenchmark [name=value,value ...]
+ *
+ *   bench      set fill getHit miss contains churn resize keySet values clear
+ *   impl       HashMap HashMapPow2 HashMapIncremental FlatHashMap
+ *              RobinHoodHashMap IntIntHashMap IntObjectHashMap
+ *              LongLongHashMap LongObjectHashMap StripedHashMap
+ *              LockFreeHashMap OffHeapHashMap CacheHashMap java.util.HashMap
+ *   size       entries in the map (default 1000,100000,1000000)
+ *   load       size / capacity before the run (default 0.5)
+ *   keys       Integer String Colliding (8 keys share each hash code)
+ *   dist       uniform zipf (exponent 0.99)
+ *   warmup     warmup iterations (default 3)
+ *   iterations measured iterations (default 5)
+ *   time       milliseconds per iteration (default 500)
+ * </pre>
+ *
+ * Misses are measured with {@code contains} because {@code get} throws for
+ * missing keys in these maps.
+ *
+ * The primitive maps and {@code OffHeapHashMap} (with {@code Codec.INT}
+ * keys and values) only run with {@code keys=Integer}. A
+ * {@code CacheHashMap} is bounded at the capacity it is created with, so
+ * its {@code fill} runs measure a cache that is evicting.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class HashMapBenchmark {
+
+    private static final int ACCESSES = 1 << 16;
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    // Written with every result so the JIT can't drop the work.
+    private static volatile long sink;
+
+    private String[] benches = {"set", "fill", "getHit", "miss", "contains",
+        "churn", "resize", "keySet", "values", "clear"};
+    private String[] impls = {"HashMap", "java.util.HashMap"};
+    private int[] sizes = {1000, 100000, 1000000};
+    private double[] loads = {0.5};
+    private String[] keyTypes = {"Integer"};
+    private String[] dists = {"uniform"};
+    private int warmup = 3;
+    private int iterations = 5;
+    private long timeNanos = 500_000_000L;
+
+    /**
+     * The operations the benchmarks need, so every map runs the same code.
+     */
+    interface Target {
+        /**
+         * Sets a key.
+         *
+         * @param key key to set
+         * @param value value to set
+         * @return old value or null
+         */
+        Object set(Object key, Object value);
+
+        /**
+         * Gets a key that is known to be in the map.
+         *
+         * @param key key to get
+         * @return its value
+         */
+        Object get(Object key);
+
+        /**
+         * Checks for a key.
+         *
+         * @param key key to look for
+         * @return whether it is in the map
+         */
+        boolean contains(Object key);
+
+        /**
+         * Removes a key that is known to be in the map.
+         *
+         * @param key key to remove
+         * @return its value
+         */
+        Object delete(Object key);
+
+        /**
+         * Rehashes into a backing table of {@code length}.
+         *
+         * @param length new capacity
+         */
+        void resize(int length);
+
+        /**
+         * Gets the keys.
+         *
+         * @return the keys
+         */
+        Collection<?> keySet();
+
+        /**
+         * Gets the values.
+         *
+         * @return the values
+         */
+        Collection<?> values();
+
+        /**
+         * Removes everything.
+         */
+        void clear();
+    }
+
+    /**
+     * Creates an empty map of the given implementation wrapped as a target.
+     *
+     * @param impl implementation name
+     * @param capacity initial capacity
+     * @return the new map
+     */
+    static Target create(String impl, int capacity) {
+        switch (impl) {
+        case "HashMap":
+            return wrap(new HashMap<Object, Object>(capacity));
+        case "HashMapPow2":
+            return wrap(new HashMap<Object, Object>(capacity, true));
+        case "HashMapIncremental":
+            return wrap(new HashMap<Object, Object>(capacity, true, true));
+        case "FlatHashMap":
+            FlatHashMap<Object, Object> flat = new FlatHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return flat.set(k, v);
+                }
+                public Object get(Object k) {
+                    return flat.get(k);
+                }
+                public boolean contains(Object k) {
+                    return flat.contains(k);
+                }
+                public Object delete(Object k) {
+                    return flat.delete(k);
+                }
+                public void resize(int length) {
+                    flat.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return flat.keySet();
+                }
+                public Collection<?> values() {
+                    return flat.values();
+                }
+                public void clear() {
+                    flat.clear();
+                }
+            };
+        case "RobinHoodHashMap":
+            RobinHoodHashMap<Object, Object> robin =
+                    new RobinHoodHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return robin.set(k, v);
+                }
+                public Object get(Object k) {
+                    return robin.get(k);
+                }
+                public boolean contains(Object k) {
+                    return robin.contains(k);
+                }
+                public Object delete(Object k) {
+                    return robin.delete(k);
+                }
+                public void resize(int length) {
+                    robin.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return robin.keySet();
+                }
+                public Collection<?> values() {
+                    return robin.values();
+                }
+                public void clear() {
+                    robin.clear();
+                }
+            };
+        case "IntIntHashMap":
+            IntIntHashMap intInt = new IntIntHashMap(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return intInt.set((Integer) k, (Integer) v);
+                }
+                public Object get(Object k) {
+                    return intInt.get((Integer) k);
+                }
+                public boolean contains(Object k) {
+                    return intInt.contains((Integer) k);
+                }
+                public Object delete(Object k) {
+                    return intInt.delete((Integer) k);
+                }
+                public void resize(int length) {
+                    intInt.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return view(intInt.keys());
+                }
+                public Collection<?> values() {
+                    return view(intInt.values());
+                }
+                public void clear() {
+                    intInt.clear();
+                }
+            };
+        case "IntObjectHashMap":
+            IntObjectHashMap<Object> intObject =
+                    new IntObjectHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return intObject.set((Integer) k, v);
+                }
+                public Object get(Object k) {
+                    return intObject.get((Integer) k);
+                }
+                public boolean contains(Object k) {
+                    return intObject.contains((Integer) k);
+                }
+                public Object delete(Object k) {
+                    return intObject.delete((Integer) k);
+                }
+                public void resize(int length) {
+                    intObject.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return view(intObject.keys());
+                }
+                public Collection<?> values() {
+                    return intObject.values();
+                }
+                public void clear() {
+                    intObject.clear();
+                }
+            };
+        case "LongLongHashMap":
+            LongLongHashMap longLong = new LongLongHashMap(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return longLong.set((Integer) k, (Integer) v);
+                }
+                public Object get(Object k) {
+                    return longLong.get((Integer) k);
+                }
+                public boolean contains(Object k) {
+                    return longLong.contains((Integer) k);
+                }
+                public Object delete(Object k) {
+                    return longLong.delete((Integer) k);
+                }
+                public void resize(int length) {
+                    longLong.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return view(longLong.keys());
+                }
+                public Collection<?> values() {
+                    return view(longLong.values());
+                }
+                public void clear() {
+                    longLong.clear();
+                }
+            };
+        case "LongObjectHashMap":
+            LongObjectHashMap<Object> longObject =
+                    new LongObjectHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return longObject.set((Integer) k, v);
+                }
+                public Object get(Object k) {
+                    return longObject.get((Integer) k);
+                }
+                public boolean contains(Object k) {
+                    return longObject.contains((Integer) k);
+                }
+                public Object delete(Object k) {
+                    return longObject.delete((Integer) k);
+                }
+                public void resize(int length) {
+                    longObject.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return view(longObject.keys());
+                }
+                public Collection<?> values() {
+                    return longObject.values();
+                }
+                public void clear() {
+                    longObject.clear();
+                }
+            };
+        case "StripedHashMap":
+            StripedHashMap<Object, Object> striped = new StripedHashMap<>(
+                    StripedHashMap.DEFAULT_SEGMENTS, Math.max(1,
+                    capacity / StripedHashMap.DEFAULT_SEGMENTS));
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return striped.set(k, v);
+                }
+                public Object get(Object k) {
+                    return striped.get(k);
+                }
+                public boolean contains(Object k) {
+                    return striped.contains(k);
+                }
+                public Object delete(Object k) {
+                    return striped.delete(k);
+                }
+                public void resize(int length) {
+                    // Segments only grow themselves; copy like java.util.
+                    StripedHashMap<Object, Object> copy =
+                            new StripedHashMap<>(
+                            StripedHashMap.DEFAULT_SEGMENTS, Math.max(1,
+                            length / StripedHashMap.DEFAULT_SEGMENTS));
+                    for (Object key : striped.keySet()) {
+                        copy.set(key, striped.get(key));
+                    }
+                    sink += copy.size();
+                }
+                public Collection<?> keySet() {
+                    return striped.keySet();
+                }
+                public Collection<?> values() {
+                    return striped.values();
+                }
+                public void clear() {
+                    striped.clear();
+                }
+            };
+        case "LockFreeHashMap":
+            LockFreeHashMap<Object, Object> lockFree =
+                    new LockFreeHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return lockFree.set(k, v);
+                }
+                public Object get(Object k) {
+                    return lockFree.get(k);
+                }
+                public boolean contains(Object k) {
+                    return lockFree.contains(k);
+                }
+                public Object delete(Object k) {
+                    return lockFree.delete(k);
+                }
+                public void resize(int length) {
+                    lockFree.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return lockFree.keySet();
+                }
+                public Collection<?> values() {
+                    return lockFree.values();
+                }
+                public void clear() {
+                    lockFree.clear();
+                }
+            };
+        case "OffHeapHashMap":
+            OffHeapHashMap<Integer, Integer> offHeap =
+                    new OffHeapHashMap<>(Codec.INT, Codec.INT, capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return offHeap.set((Integer) k, (Integer) v);
+                }
+                public Object get(Object k) {
+                    return offHeap.get((Integer) k);
+                }
+                public boolean contains(Object k) {
+                    return offHeap.contains((Integer) k);
+                }
+                public Object delete(Object k) {
+                    return offHeap.delete((Integer) k);
+                }
+                public void resize(int length) {
+                    offHeap.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return offHeap.keySet();
+                }
+                public Collection<?> values() {
+                    return offHeap.values();
+                }
+                public void clear() {
+                    offHeap.clear();
+                }
+            };
+        case "CacheHashMap":
+            CacheHashMap<Object, Object> cache = new CacheHashMap<>(capacity);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return cache.set(k, v);
+                }
+                public Object get(Object k) {
+                    return cache.get(k);
+                }
+                public boolean contains(Object k) {
+                    return cache.contains(k);
+                }
+                public Object delete(Object k) {
+                    return cache.delete(k);
+                }
+                public void resize(int length) {
+                    cache.resizeBackingTable(length);
+                }
+                public Collection<?> keySet() {
+                    return cache.keySet();
+                }
+                public Collection<?> values() {
+                    return cache.values();
+                }
+                public void clear() {
+                    cache.clear();
+                }
+            };
+        case "java.util.HashMap":
+            java.util.HashMap<Object, Object> jdk =
+                    new java.util.HashMap<>(capacity, 0.75f);
+            return new Target() {
+                public Object set(Object k, Object v) {
+                    return jdk.put(k, v);
+                }
+                public Object get(Object k) {
+                    return jdk.get(k);
+                }
+                public boolean contains(Object k) {
+                    return jdk.containsKey(k);
+                }
+                public Object delete(Object k) {
+                    return jdk.remove(k);
+                }
+                public void resize(int length) {
+                    // No explicit resize; copying is the closest equivalent.
+                    java.util.HashMap<Object, Object> copy =
+                            new java.util.HashMap<>(length, 0.75f);
+                    copy.putAll(jdk);
+                    sink += copy.size();
+                }
+                public Collection<?> keySet() {
+                    return jdk.keySet();
+                }
+                public Collection<?> values() {
+                    return jdk.values();
+                }
+                public void clear() {
+                    jdk.clear();
+                }
+            };
+        default:
+            throw new IllegalArgumentException("Unknown impl " + impl);
+        }
+    }
+
+    /**
+     * Wraps a {@code HashMap} as a target.
+     *
+     * @param map map to wrap
+     * @return the target
+     */
+    private static Target wrap(HashMap<Object, Object> map) {
+        return new Target() {
+            public Object set(Object k, Object v) {
+                return map.set(k, v);
+            }
+            public Object get(Object k) {
+                return map.get(k);
+            }
+            public boolean contains(Object k) {
+                return map.contains(k);
+            }
+            public Object delete(Object k) {
+                return map.delete(k);
+            }
+            public void resize(int length) {
+                map.resizeBackingTable(length);
+            }
+            public Collection<?> keySet() {
+                return map.keySet();
+            }
+            public Collection<?> values() {
+                return map.values();
+            }
+            public void clear() {
+                map.clear();
+            }
+        };
+    }
+
+    /**
+     * Wraps an array of primitive keys or values as a list without copying
+     * it, so keySet and values time only the map's own work.
+     *
+     * @param a the array
+     * @return a list view of it
+     */
+    private static Collection<?> view(int[] a) {
+        return new AbstractList<Integer>() {
+            public Integer get(int i) {
+                return a[i];
+            }
+            public int size() {
+                return a.length;
+            }
+        };
+    }
+
+    /**
+     * Wraps a long array as a list, like {@code view(int[])}.
+     *
+     * @param a the array
+     * @return a list view of it
+     */
+    private static Collection<?> view(long[] a) {
+        return new AbstractList<Long>() {
+            public Long get(int i) {
+                return a[i];
+            }
+            public int size() {
+                return a.length;
+            }
+        };
+    }
+
+    /**
+     * A key whose hash code is shared with its neighbours, like the
+     * {@code HackedString} keys in {@code HashMapTests}.
+     */
+    static final class CollidingKey {
+        private final String s;
+        private final int hash;
+
+        /**
+         * Create a colliding key.
+         *
+         * @param s string compared by equals
+         * @param hash hash code to report
+         */
+        CollidingKey(String s, int hash) {
+            this.s = s;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && s.equals(((CollidingKey) o).s);
+        }
+    }
+
+    /**
+     * Builds {@code count} distinct keys of a type, starting at
+     * {@code offset} so hit and miss keys don't overlap.
+     *
+     * @param type Integer, String or Colliding
+     * @param offset first key number
+     * @param count number of keys
+     * @return the keys
+     */
+    static Object[] keys(String type, int offset, int count) {
+        Object[] keys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            int n = offset + i;
+            switch (type) {
+            case "Integer":
+                keys[i] = n;
+                break;
+            case "String":
+                keys[i] = "key-" + n + "-" + Integer.toHexString(n * 31);
+                break;
+            case "Colliding":
+                keys[i] = new CollidingKey("key-" + n, n / 8);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown keys " + type);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Picks {@code count} indexes into a key array of {@code n}.
+     *
+     * @param dist uniform or zipf
+     * @param n number of keys
+     * @param count number of indexes to pick
+     * @param random source of randomness
+     * @return the access sequence
+     */
+    static int[] accesses(String dist, int n, int count, Random random) {
+        int[] res = new int[count];
+        if ("uniform".equals(dist)) {
+            for (int i = 0; i < res.length; i++) {
+                res[i] = random.nextInt(n);
+            }
+            return res;
+        }
+        if (!"zipf".equals(dist)) {
+            throw new IllegalArgumentException("Unknown dist " + dist);
+        }
+        // Gray et al.'s Zipfian generator; rank 0 is the hottest key. Ranks
+        // are shuffled onto keys so hot keys aren't adjacent in the table.
+        double zetaN = 0;
+        for (int i = 1; i <= n; i++) {
+            zetaN += 1 / Math.pow(i, ZIPF_EXPONENT);
+        }
+        double zeta2 = 1 + 1 / Math.pow(2, ZIPF_EXPONENT);
+        double alpha = 1 / (1 - ZIPF_EXPONENT);
+        double eta = (1 - Math.pow(2.0 / n, 1 - ZIPF_EXPONENT))
+                / (1 - zeta2 / zetaN);
+        int[] rankToKey = new int[n];
+        for (int i = 0; i < n; i++) {
+            rankToKey[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rankToKey[i];
+            rankToKey[i] = rankToKey[j];
+            rankToKey[j] = tmp;
+        }
+        for (int i = 0; i < res.length; i++) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            int rank;
+            if (uz < 1) {
+                rank = 0;
+            } else if (uz < zeta2) {
+                rank = 1;
+            } else {
+                rank = (int) (n * Math.pow(eta * u - eta + 1, alpha));
+            }
+            res[i] = rankToKey[Math.min(rank, n - 1)];
+        }
+        return res;
+    }
+
+    /**
+     * One benchmark run: performs a batch of operations and reports how long
+     * the timed part took.
+     */
+    interface Run {
+        /**
+         * Runs a batch.
+         *
+         * @return {ops performed, nanoseconds spent in the timed part}
+         */
+        long[] batch();
+    }
+
+    /**
+     * Builds the run for one benchmark and parameter combination.
+     *
+     * @param bench benchmark name
+     * @param impl implementation name
+     * @param size number of entries
+     * @param load size / capacity
+     * @param keyType key type
+     * @param dist access distribution
+     * @return the run
+     */
+    private Run setUp(String bench, String impl, int size, double load,
+            String keyType, String dist) {
+        if (!"Integer".equals(keyType) && (impl.startsWith("Int")
+                || impl.startsWith("Long") || impl.equals("OffHeapHashMap"))) {
+            throw new IllegalArgumentException(impl + " only runs with "
+                    + "keys=Integer");
+        }
+        Random random = new Random(1332);
+        int capacity = (int) Math.ceil(size / load);
+        Object[] hits = keys(keyType, 0, size);
+        Object[] misses = keys(keyType, size, Math.min(size, ACCESSES));
+        int[] order = accesses(dist, size, ACCESSES, random);
+        Target map = create(impl, capacity);
+        for (Object key : hits) {
+            map.set(key, key);
+        }
+
+        switch (bench) {
+        case "set":
+            return () -> {
+                long start = System.nanoTime();
+                long acc = 0;
+                for (int i : order) {
+                    acc += map.set(hits[i], hits[i]) == null ? 0 : 1;
+                }
+                sink += acc;
+                return new long[] {order.length, System.nanoTime() - start};
+            };
+        case "fill":
+            return () -> {
+                long start = System.nanoTime();
+                Target fresh = create(impl, HashMap.STARTING_SIZE);
+                for (Object key : hits) {
+                    fresh.set(key, key);
+                }
+                sink += fresh.contains(hits[0]) ? 1 : 0;
+                return new long[] {hits.length, System.nanoTime() - start};
+            };
+        case "getHit":
+            return () -> {
+                long start = System.nanoTime();
+                long acc = 0;
+                for (int i : order) {
+                    acc += map.get(hits[i]).hashCode();
+                }
+                sink += acc;
+                return new long[] {order.length, System.nanoTime() - start};
+            };
+        case "miss":
+            return () -> {
+                long start = System.nanoTime();
+                long acc = 0;
+                for (int i : order) {
+                    acc += map.contains(misses[i % misses.length]) ? 1 : 0;
+                }
+                sink += acc;
+                return new long[] {order.length, System.nanoTime() - start};
+            };
+        case "contains":
+            return () -> {
+                long start = System.nanoTime();
+                long acc = 0;
+                for (int i : order) {
+                    acc += map.contains(hits[i]) ? 1 : 0;
+                }
+                sink += acc;
+                return new long[] {order.length, System.nanoTime() - start};
+            };
+        case "churn":
+            // Removes and re-adds keys so the size stays put.
+            return () -> {
+                long start = System.nanoTime();
+                for (int i : order) {
+                    map.delete(hits[i]);
+                    map.set(hits[i], hits[i]);
+                }
+                return new long[] {order.length, System.nanoTime() - start};
+            };
+        case "resize":
+            int[] flip = {0};
+            return () -> {
+                long start = System.nanoTime();
+                map.resize(flip[0]++ % 2 == 0 ? 2 * capacity : capacity);
+                return new long[] {1, System.nanoTime() - start};
+            };
+        case "keySet":
+            return () -> {
+                long start = System.nanoTime();
+                sink += map.keySet().size();
+                return new long[] {1, System.nanoTime() - start};
+            };
+        case "values":
+            return () -> {
+                long start = System.nanoTime();
+                sink += map.values().size();
+                return new long[] {1, System.nanoTime() - start};
+            };
+        case "clear":
+            return () -> {
+                for (Object key : hits) {
+                    map.set(key, key);
+                }
+                long start = System.nanoTime();
+                map.clear();
+                return new long[] {1, System.nanoTime() - start};
+            };
+        default:
+            throw new IllegalArgumentException("Unknown bench " + bench);
+        }
+    }
+
+    /**
+     * Runs one benchmark and parameter combination.
+     *
+     * @param run the run
+     * @return ns/op for every measured iteration
+     */
+    private double[] measure(Run run) {
+        double[] res = new double[iterations];
+        for (int iter = -warmup; iter < iterations; iter++) {
+            long ops = 0;
+            long nanos = 0;
+            long end = System.nanoTime() + timeNanos;
+            do {
+                long[] batch = run.batch();
+                ops += batch[0];
+                nanos += batch[1];
+            } while (System.nanoTime() < end);
+            if (iter >= 0) {
+                res[iter] = nanos / (double) ops;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Runs every combination and prints one row each.
+     */
+    private void runAll() {
+        System.out.printf("%-9s %-19s %9s %5s %-9s %-7s %12s %10s%n", "bench",
+                "impl", "size", "load", "keys", "dist", "ns/op", "stddev");
+        for (String bench : benches) {
+            for (String impl : impls) {
+                for (int size : sizes) {
+                    for (double load : loads) {
+                        for (String keyType : keyTypes) {
+                            for (String dist : dists) {
+                                double[] res = measure(setUp(bench, impl, size,
+                                        load, keyType, dist));
+                                double mean = Arrays.stream(res).average()
+                                        .orElse(0);
+                                double var = Arrays.stream(res)
+                                        .map(x -> (x - mean) * (x - mean))
+                                        .sum() / Math.max(1, res.length - 1);
+                                System.out.printf("%-9s %-19s %9d %5.2f %-9s "
+                                        + "%-7s %12.2f %10.2f%n", bench, impl,
+                                        size, load, keyType, dist, mean,
+                                        Math.sqrt(var));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses {@code name=value,value} arguments and runs the benchmarks.
+     *
+     * @param args parameter overrides
+     */
+    public static void main(String[] args) {
+        HashMapBenchmark b = new HashMapBenchmark();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected name=value: "
+                        + arg);
+            }
+            String name = arg.substring(0, eq);
+            String[] values = arg.substring(eq + 1).split(",");
+            switch (name) {
+            case "bench":
+                b.benches = values;
+                break;
+            case "impl":
+                b.impls = values;
+                break;
+            case "size":
+                b.sizes = Arrays.stream(values).mapToInt(Integer::parseInt)
+                        .toArray();
+                break;
+            case "load":
+                b.loads = Arrays.stream(values)
+                        .mapToDouble(Double::parseDouble).toArray();
+                break;
+            case "keys":
+                b.keyTypes = values;
+                break;
+            case "dist":
+                b.dists = values;
+                break;
+            case "warmup":
+                b.warmup = Integer.parseInt(values[0]);
+                break;
+            case "iterations":
+                b.iterations = Integer.parseInt(values[0]);
+                break;
+            case "time":
+                b.timeNanos = Long.parseLong(values[0]) * 1_000_000L;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown parameter "
+                        + name);
+            }
+        }
+        b.runAll();
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The operations and constants shared by {@code HashMap} and the maps
+ * modeled on it.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public interface HashMapInterface<K, V> {
+
+    // Initial capacity of a map created without one.
+    int STARTING_SIZE = 9;
+
+    // Largest size / capacity a set leaves behind before it regrows.
+    double MAX_LOAD_FACTOR = 0.67;
+
+    // Occupied fraction (live plus removed entries) above which set rehashes
+    // at the same capacity to clear out removed entries.
+    double MAX_OCCUPIED_FACTOR = 0.8;
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    V set(K key, V value);
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the removed key
+     */
+    V delete(K key);
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @throws IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the key
+     */
+    V get(K key);
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @throws IllegalArgumentException if key is null
+     * @return whether or not the key is in the map
+     */
+    boolean contains(K key);
+
+    /**
+     * Clears the map and resets the backing table to
+     * {@code STARTING_SIZE}.
+     */
+    void clear();
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    int size();
+
+    /**
+     * Gets the set of keys in the map.
+     *
+     * @return set of keys in the map
+     */
+    Set<K> keySet();
+
+    /**
+     * Gets the list of values in the map, in slot order.
+     *
+     * @return list of values in the map
+     */
+    List<V> values();
+
+    /**
+     * Resizes the backing table to {@code length}, rehashing every live
+     * entry. Removed entries are dropped.
+     *
+     * @param length new length of the backing table
+     * @throws IllegalArgumentException if length is not positive or is
+     * less than the number of entries in the map
+     */
+    void resizeBackingTable(int length);
+
+    /**
+     * Gets the backing table of the map.
+     *
+     * @return the backing table
+     */
+    MapEntry<K, V>[] getTable();
+}
@@ -0,0 +1,422 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A snapshot of the metrics of a {@code HashMap}, taken with
+ * {@code HashMap.metrics()}.
+ *
+ * The layout figures come from scanning the backing table when the
+ * snapshot is taken:
+ * <ul>
+ * <li>tombstones: removed entries that still take up slots and lengthen
+ * probes until they are reused or compacted away</li>
+ * <li>clusters: runs of occupied (live or removed) slots. A miss has to
+ * walk to the end of the run it lands in, so long runs mean slow
+ * misses.</li>
+ * <li>bucket distribution: entry {@code k} is the number of slots that
+ * are the home slot of {@code k} live keys, with the last entry counting
+ * every slot with at least that many. A good hash spreads keys so most
+ * slots are home to 0 or 1.</li>
+ * </ul>
+ *
+ * The counters are only kept with {@code -Dhashmap.metrics=true} and are
+ * zero otherwise. Probe histograms count the slots a lookup
+ * ({@code get}, {@code contains}, {@code delete}) looked at, in
+ * power-of-two buckets: entry {@code i} counts lookups that looked at
+ * 2^i to 2^(i+1) - 1 slots, the last entry everything longer. Resizes
+ * count every regrow and same-length rehash; for an incremental map the
+ * time is only that of starting one.
+ *
+ * A snapshot never changes. {@code register} publishes a map over JMX;
+ * the published layout figures are rescanned at most once every
+ * {@code REFRESH_NANOS}, everything else is read as it is.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public final class HashMapMetrics implements HashMapMetricsMXBean {
+
+    // Buckets in each probe length histogram.
+    static final int PROBE_BUCKETS = 16;
+
+    // Entries in the bucket distribution; the last counts this many keys
+    // or more.
+    static final int DISTRIBUTION_BUCKETS = 8;
+
+    // How long a published map reuses one scan of its table.
+    static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Counters read by a published map when METRICS is off.
+    private static final Recorder EMPTY = new Recorder();
+
+    /**
+     * The counters a {@code HashMap} keeps while {@code METRICS} is on. Not
+     * thread safe, like the map that updates them.
+     */
+    static final class Recorder {
+        private final long[] hitProbes = new long[PROBE_BUCKETS];
+        private final long[] missProbes = new long[PROBE_BUCKETS];
+        private long hitProbeTotal;
+        private long missProbeTotal;
+        private long resizes;
+        private long resizeNanos;
+        private long maxResizeNanos;
+
+        /**
+         * Counts a lookup.
+         *
+         * @param hit whether the key was found
+         * @param probes slots looked at, at least 1
+         */
+        void lookup(boolean hit, int probes) {
+            int bucket = Math.min(31 - Integer.numberOfLeadingZeros(probes),
+                    PROBE_BUCKETS - 1);
+            if (hit) {
+                hitProbes[bucket]++;
+                hitProbeTotal += probes;
+            } else {
+                missProbes[bucket]++;
+                missProbeTotal += probes;
+            }
+        }
+
+        /**
+         * Counts a resize.
+         *
+         * @param nanos time it took
+         */
+        void resized(long nanos) {
+            resizes++;
+            resizeNanos += nanos;
+            maxResizeNanos = Math.max(maxResizeNanos, nanos);
+        }
+    }
+
+    private final int size;
+    private final int capacity;
+    private final int tombstones;
+    private final int clusterCount;
+    private final int longestCluster;
+    private final long[] bucketDistribution;
+    private final long[] hitProbeHistogram;
+    private final long[] missProbeHistogram;
+    private final long hitProbeTotal;
+    private final long missProbeTotal;
+    private final long resizeCount;
+    private final long resizeNanos;
+    private final long maxResizeNanos;
+
+    /**
+     * Create a snapshot from a scan of the table and the map's counters.
+     *
+     * @param size number of live entries
+     * @param capacity length of the backing table
+     * @param tombstones number of removed entries
+     * @param clusterCount number of runs of occupied slots
+     * @param longestCluster length of the longest run
+     * @param homes number of live keys whose home is each slot
+     * @param recorder the map's counters, or null if they aren't kept
+     */
+    HashMapMetrics(int size, int capacity, int tombstones, int clusterCount,
+            int longestCluster, int[] homes, Recorder recorder) {
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.clusterCount = clusterCount;
+        this.longestCluster = longestCluster;
+        bucketDistribution = new long[DISTRIBUTION_BUCKETS];
+        for (int keys : homes) {
+            bucketDistribution[Math.min(keys, DISTRIBUTION_BUCKETS - 1)]++;
+        }
+        if (recorder == null) {
+            hitProbeHistogram = new long[PROBE_BUCKETS];
+            missProbeHistogram = new long[PROBE_BUCKETS];
+            hitProbeTotal = 0;
+            missProbeTotal = 0;
+            resizeCount = 0;
+            resizeNanos = 0;
+            maxResizeNanos = 0;
+        } else {
+            hitProbeHistogram = recorder.hitProbes.clone();
+            missProbeHistogram = recorder.missProbes.clone();
+            hitProbeTotal = recorder.hitProbeTotal;
+            missProbeTotal = recorder.missProbeTotal;
+            resizeCount = recorder.resizes;
+            resizeNanos = recorder.resizeNanos;
+            maxResizeNanos = recorder.maxResizeNanos;
+        }
+    }
+
+    /**
+     * Publishes a map's metrics on the platform MBean server under
+     * {@code hashmap:type=HashMap,name=<name>}. The map is kept reachable
+     * until {@code unregister} is called.
+     *
+     * @param map map to publish
+     * @param name name to publish it under
+     * @return the name the MBean was registered with
+     * @throws IllegalArgumentException if map or name is null
+     * @throws JMException if the name is invalid or already taken
+     */
+    public static ObjectName register(HashMap<?, ?> map, String name)
+            throws JMException {
+        if (map == null || name == null) {
+            throw new IllegalArgumentException("Cannot register a null map "
+                    + "or name.");
+        }
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new Live(map, REFRESH_NANOS), objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes a map published with {@code register}.
+     *
+     * @param name name it was published under
+     * @throws JMException if nothing is registered under the name
+     */
+    public static void unregister(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                objectName(name));
+    }
+
+    /**
+     * Gets the JMX name for a map name.
+     *
+     * @param name name of the map
+     * @return {@code hashmap:type=HashMap,name=<name>}
+     * @throws JMException if the result is not a valid name
+     */
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("hashmap:type=HashMap,name="
+                + ObjectName.quote(name));
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public double getLoad() {
+        return capacity == 0 ? 0 : size / (double) capacity;
+    }
+
+    @Override
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    @Override
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    @Override
+    public int getLongestCluster() {
+        return longestCluster;
+    }
+
+    @Override
+    public long[] getBucketDistribution() {
+        return bucketDistribution.clone();
+    }
+
+    @Override
+    public long getHitCount() {
+        return Arrays.stream(hitProbeHistogram).sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return Arrays.stream(missProbeHistogram).sum();
+    }
+
+    @Override
+    public double getMeanHitProbes() {
+        long hits = getHitCount();
+        return hits == 0 ? 0 : hitProbeTotal / (double) hits;
+    }
+
+    @Override
+    public double getMeanMissProbes() {
+        long misses = getMissCount();
+        return misses == 0 ? 0 : missProbeTotal / (double) misses;
+    }
+
+    @Override
+    public long[] getHitProbeHistogram() {
+        return hitProbeHistogram.clone();
+    }
+
+    @Override
+    public long[] getMissProbeHistogram() {
+        return missProbeHistogram.clone();
+    }
+
+    @Override
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    @Override
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public long getMaxResizeNanos() {
+        return maxResizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d capacity=%d tombstones=%d clusters=%d "
+                + "longestCluster=%d buckets=%s hits=%d (mean probes %.2f) "
+                + "misses=%d (mean probes %.2f) resizes=%d (%d ns)", size,
+                capacity, tombstones, clusterCount, longestCluster,
+                Arrays.toString(bucketDistribution), getHitCount(),
+                getMeanHitProbes(), getMissCount(), getMeanMissProbes(),
+                resizeCount, resizeNanos);
+    }
+
+    /**
+     * The MBean {@code register} publishes. Size, capacity, tombstones and
+     * the counters are read straight from the map. The layout figures need
+     * a scan of the table, so one snapshot is taken and shared by every
+     * layout read until it is {@code refreshNanos} old.
+     */
+    static final class Live implements HashMapMetricsMXBean {
+        private final HashMap<?, ?> map;
+        private final long refreshNanos;
+        private HashMapMetrics layout;
+        private long layoutTime;
+
+        /**
+         * Create a bean reading from a map.
+         *
+         * @param map map to read
+         * @param refreshNanos how long a layout snapshot is reused
+         */
+        Live(HashMap<?, ?> map, long refreshNanos) {
+            this.map = map;
+            this.refreshNanos = refreshNanos;
+        }
+
+        /**
+         * Gets the layout snapshot, taking a new one if the last is too old.
+         *
+         * @return a snapshot at most {@code refreshNanos} old
+         */
+        private synchronized HashMapMetrics layout() {
+            long now = System.nanoTime();
+            if (layout == null || now - layoutTime >= refreshNanos) {
+                layout = map.metrics();
+                layoutTime = now;
+            }
+            return layout;
+        }
+
+        /**
+         * Gets the map's counters.
+         *
+         * @return the recorder, or an empty one when METRICS is off
+         */
+        private Recorder recorder() {
+            Recorder recorder = map.recorder();
+            return recorder == null ? EMPTY : recorder;
+        }
+
+        @Override
+        public int getSize() {
+            return map.size();
+        }
+
+        @Override
+        public int getCapacity() {
+            return map.getTable().length;
+        }
+
+        @Override
+        public double getLoad() {
+            return map.size() / (double) map.getTable().length;
+        }
+
+        @Override
+        public int getTombstones() {
+            return map.removedCount();
+        }
+
+        @Override
+        public int getClusterCount() {
+            return layout().getClusterCount();
+        }
+
+        @Override
+        public int getLongestCluster() {
+            return layout().getLongestCluster();
+        }
+
+        @Override
+        public long[] getBucketDistribution() {
+            return layout().getBucketDistribution();
+        }
+
+        @Override
+        public long getHitCount() {
+            return Arrays.stream(recorder().hitProbes).sum();
+        }
+
+        @Override
+        public long getMissCount() {
+            return Arrays.stream(recorder().missProbes).sum();
+        }
+
+        @Override
+        public double getMeanHitProbes() {
+            long hits = getHitCount();
+            return hits == 0 ? 0 : recorder().hitProbeTotal / (double) hits;
+        }
+
+        @Override
+        public double getMeanMissProbes() {
+            long misses = getMissCount();
+            return misses == 0 ? 0
+                    : recorder().missProbeTotal / (double) misses;
+        }
+
+        @Override
+        public long[] getHitProbeHistogram() {
+            return recorder().hitProbes.clone();
+        }
+
+        @Override
+        public long[] getMissProbeHistogram() {
+            return recorder().missProbes.clone();
+        }
+
+        @Override
+        public long getResizeCount() {
+            return recorder().resizes;
+        }
+
+        @Override
+        public long getResizeNanos() {
+            return recorder().resizeNanos;
+        }
+
+        @Override
+        public long getMaxResizeNanos() {
+            return recorder().maxResizeNanos;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Metrics of a {@code HashMap} as exposed over JMX. See
+ * {@code HashMapMetrics} for what each figure means and
+ * {@code HashMapMetrics.register} for publishing a map.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public interface HashMapMetricsMXBean {
+
+    /**
+     * @return number of live entries
+     */
+    int getSize();
+
+    /**
+     * @return length of the backing table
+     */
+    int getCapacity();
+
+    /**
+     * @return live entries per slot
+     */
+    double getLoad();
+
+    /**
+     * @return removed entries still taking up slots
+     */
+    int getTombstones();
+
+    /**
+     * @return number of runs of occupied slots
+     */
+    int getClusterCount();
+
+    /**
+     * @return length of the longest run of occupied slots
+     */
+    int getLongestCluster();
+
+    /**
+     * @return number of slots that are home to 0, 1, 2, ... live keys
+     */
+    long[] getBucketDistribution();
+
+    /**
+     * @return lookups that found their key
+     */
+    long getHitCount();
+
+    /**
+     * @return lookups that did not find their key
+     */
+    long getMissCount();
+
+    /**
+     * @return mean slots looked at by a lookup that found its key
+     */
+    double getMeanHitProbes();
+
+    /**
+     * @return mean slots looked at by a lookup that did not find its key
+     */
+    double getMeanMissProbes();
+
+    /**
+     * @return hits by slots looked at, in power-of-two buckets
+     */
+    long[] getHitProbeHistogram();
+
+    /**
+     * @return misses by slots looked at, in power-of-two buckets
+     */
+    long[] getMissProbeHistogram();
+
+    /**
+     * @return number of times the table was resized or rehashed
+     */
+    long getResizeCount();
+
+    /**
+     * @return total nanoseconds spent resizing
+     */
+    long getResizeNanos();
+
+    /**
+     * @return nanoseconds taken by the slowest resize
+     */
+    long getMaxResizeNanos();
+}
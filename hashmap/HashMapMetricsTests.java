@@ -0,0 +1,154 @@
+import org.junit.Assume;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HashMapMetrics Tests. The counter tests only run with
+ * -Dhashmap.metrics=true.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HashMapMetricsTests {
+
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void test01Layout() {
+        HashMap<Integer, String> map = new HashMap<>(10);
+        // 0, 10 and 20 share home slot 0; 5 and 6 sit on their own.
+        for (int key : new int[] {0, 10, 20, 5, 6}) {
+            map.set(key, "v" + key);
+        }
+        map.delete(10);
+        HashMapMetrics metrics = map.metrics();
+        assertEquals(4, metrics.getSize());
+        assertEquals(10, metrics.getCapacity());
+        assertEquals(1, metrics.getTombstones());
+        assertEquals(2, metrics.getClusterCount());
+        assertEquals(3, metrics.getLongestCluster());
+        assertArrayEquals(new long[] {7, 2, 1, 0, 0, 0, 0, 0},
+                metrics.getBucketDistribution());
+
+        // A cluster running off the end of the table wraps to the start.
+        map.set(9, "v9");
+        map.set(19, "v19");
+        metrics = map.metrics();
+        assertEquals(2, metrics.getClusterCount());
+        assertEquals(4, metrics.getLongestCluster());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02Counters() {
+        HashMap<Integer, String> map = new HashMap<>(10);
+        for (int key : new int[] {0, 10, 20}) {
+            map.set(key, "v" + key);
+        }
+        map.get(0);
+        map.get(20);
+        map.contains(30);
+        HashMapMetrics metrics = map.metrics();
+        if (!HashMap.METRICS) {
+            assertEquals(0, metrics.getHitCount());
+            assertEquals(0, metrics.getResizeCount());
+            return;
+        }
+        assertEquals(2, metrics.getHitCount());
+        assertEquals(1, metrics.getMissCount());
+        assertEquals(2.0, metrics.getMeanHitProbes(), 1e-9);
+        assertEquals(4.0, metrics.getMeanMissProbes(), 1e-9);
+        assertArrayEquals(new long[] {1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0}, metrics.getHitProbeHistogram());
+        assertEquals(0, metrics.getResizeCount());
+
+        for (int i = 0; i < 100; i++) {
+            map.set(i, "v" + i);
+        }
+        metrics = map.metrics();
+        assertTrue(metrics.getResizeCount() > 0);
+        assertTrue(metrics.getMaxResizeNanos() > 0);
+        assertTrue(metrics.getResizeNanos() >= metrics.getMaxResizeNanos());
+    }
+
+    @Test(timeout = 2000)
+    public void test03Jmx() throws JMException {
+        HashMap<String, String> map = new HashMap<>();
+        map.set("a", "b");
+        ObjectName name = HashMapMetrics.register(map, "sessions");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1, server.getAttribute(name, "Size"));
+            assertEquals(0, server.getAttribute(name, "Tombstones"));
+            map.delete("a");
+            assertEquals(1, server.getAttribute(name, "Tombstones"));
+            assertTrue(server.getAttribute(name, "BucketDistribution")
+                    instanceof long[]);
+        } finally {
+            HashMapMetrics.unregister("sessions");
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04NoCountersWhenOff() {
+        Assume.assumeFalse(HashMap.METRICS);
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.set(i, i);
+            map.contains(i + 1000);
+        }
+        assertEquals(0, map.metrics().getMissCount());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test05IncrementalResizeCountsOldTable() {
+        HashMap<Integer, Integer> map = new HashMap<>(16, true, true);
+        for (int i = 0; i < 200; i++) {
+            map.set(i, i);
+            HashMapMetrics metrics = map.metrics();
+            long[] buckets = metrics.getBucketDistribution();
+            long keys = 0;
+            for (int k = 0; k < buckets.length; k++) {
+                keys += k * buckets[k];
+            }
+            assertEquals(map.size(), keys);
+            assertEquals(map.getTable().length,
+                    Arrays.stream(buckets).sum());
+            assertTrue(metrics.getLongestCluster() >= 1);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06LiveReusesLayout() {
+        HashMap<Integer, Integer> map = new HashMap<>(10);
+        map.set(0, 0);
+        HashMapMetrics.Live cached = new HashMapMetrics.Live(map,
+                Long.MAX_VALUE);
+        HashMapMetrics.Live fresh = new HashMapMetrics.Live(map, 0);
+        assertEquals(1, cached.getClusterCount());
+        assertEquals(1, fresh.getClusterCount());
+
+        map.set(5, 5);
+        map.delete(0);
+        // Cheap figures are always current; the layout waits for a refresh.
+        assertEquals(1, cached.getSize());
+        assertEquals(1, cached.getTombstones());
+        assertEquals(10, cached.getCapacity());
+        assertEquals(1, cached.getClusterCount());
+        assertEquals(2, fresh.getClusterCount());
+        assertEquals(map.metrics().getHitCount(), cached.getHitCount());
+    }
+}
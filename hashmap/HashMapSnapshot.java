@@ -0,0 +1,266 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a {@code HashMap}'s backing table to a file and reads it back
+ * without rehashing, so a large map can be restored much faster than by
+ * calling {@code set} for every entry.
+ *
+ * A snapshot is a header, one fixed-width record per slot of the table
+ * (empty slots included) and a CRC32 of everything before it. All numbers
+ * are big-endian.
+ *
+ * <pre>
+ * header  int magic "HMAP", int version, int flags (bit 0: power of two,
+ *         bit 1: incremental resize), int capacity, int size,
+ *         int removed, int key width, int value width
+ * slot    byte state (0 empty, 1 full, 2 removed), int hash, key bytes,
+ *         value bytes; all zero when empty
+ * trailer long CRC32 of the header and slots
+ * </pre>
+ *
+ * Keys and values are encoded with a {@code Codec}. Reading trusts the
+ * stored hash codes, so the key type's {@code hashCode()} must give the
+ * same result in the reading JVM, as it does for {@code String},
+ * {@code Integer} and {@code Long}. This is checked for every key.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public final class HashMapSnapshot {
+
+    /**
+     * Format version written into new snapshots.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x484D4150;
+    private static final int FLAG_POWER_OF_TWO = 1;
+    private static final int FLAG_INCREMENTAL = 2;
+    private static final int HEADER = 8 * Integer.BYTES;
+    private static final int SLOT_HEADER = 1 + Integer.BYTES;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    /**
+     * Not instantiable.
+     */
+    private HashMapSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a map. The snapshot is written to a sibling file
+     * ending in {@code .tmp} and then moved over {@code file}, so
+     * {@code file} is never left half written. An incremental resize in
+     * progress is finished first.
+     *
+     * @param map map to write
+     * @param file file to write the snapshot to
+     * @param keyCodec codec for the keys
+     * @param valueCodec codec for the values
+     * @param <K> key type
+     * @param <V> value type
+     * @throws IOException if the file can't be written
+     */
+    public static <K, V> void write(HashMap<K, V> map, Path file,
+            Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        MapEntry<K, V>[] table = map.settledTable();
+        int keyWidth = keyCodec.width();
+        int slotWidth = SLOT_HEADER + keyWidth + valueCodec.width();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(
+                Math.max(BUFFER_BYTES, slotWidth));
+        CRC32 crc = new CRC32();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putInt((map.isPowerOfTwo() ? FLAG_POWER_OF_TWO : 0)
+                            | (map.isIncremental() ? FLAG_INCREMENTAL : 0))
+                    .putInt(table.length).putInt(map.size())
+                    .putInt(map.removedCount()).putInt(keyWidth)
+                    .putInt(valueCodec.width());
+            for (MapEntry<K, V> entry : table) {
+                if (buffer.remaining() < slotWidth) {
+                    drain(channel, buffer, crc);
+                }
+                int offset = buffer.position();
+                if (entry == null) {
+                    for (int i = 0; i < slotWidth; i++) {
+                        buffer.put(EMPTY);
+                    }
+                    continue;
+                }
+                buffer.put(entry.isRemoved() ? REMOVED : FULL);
+                buffer.putInt(entry.getHash());
+                keyCodec.write(entry.getKey(), buffer, offset + SLOT_HEADER);
+                valueCodec.write(entry.getValue(), buffer,
+                        offset + SLOT_HEADER + keyWidth);
+                buffer.position(offset + slotWidth);
+            }
+            drain(channel, buffer, crc);
+            buffer.putLong(crc.getValue());
+            drain(channel, buffer, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes out everything put in a buffer and empties it.
+     *
+     * @param channel channel to write to
+     * @param buffer buffer to write out
+     * @param crc checksum to add the bytes to, or null
+     * @throws IOException if the channel can't be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer,
+            CRC32 crc) throws IOException {
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads a snapshot back into a new map with exactly the table layout
+     * that was written. Nothing is rehashed and no key is compared.
+     *
+     * @param file file holding the snapshot
+     * @param keyCodec codec the keys were written with
+     * @param valueCodec codec the values were written with
+     * @param <K> key type
+     * @param <V> value type
+     * @return the restored map
+     * @throws IOException if the file can't be read, is not a snapshot, has
+     * an unsupported version or fails its checksum
+     * @throws IllegalArgumentException if the codecs don't match the widths
+     * in the snapshot, or a key's hash code differs from the stored one
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> HashMap<K, V> read(Path file, Codec<K> keyCodec,
+            Codec<V> valueCodec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer header = fill(channel, ByteBuffer.allocate(HEADER),
+                    crc);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a hash map snapshot.");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version "
+                        + version + ".");
+            }
+            int flags = header.getInt();
+            boolean powerOfTwo = (flags & FLAG_POWER_OF_TWO) != 0;
+            boolean incremental = (flags & FLAG_INCREMENTAL) != 0;
+            int capacity = header.getInt();
+            int size = header.getInt();
+            int removed = header.getInt();
+            int keyWidth = header.getInt();
+            int valueWidth = header.getInt();
+            if (keyWidth != keyCodec.width()
+                    || valueWidth != valueCodec.width()) {
+                throw new IllegalArgumentException("Snapshot was written with "
+                        + keyWidth + " byte keys and " + valueWidth
+                        + " byte values.");
+            }
+            int slotWidth = SLOT_HEADER + keyWidth + valueWidth;
+            if (capacity <= 0 || size < 0 || removed < 0
+                    || powerOfTwo && Integer.bitCount(capacity) != 1
+                    || (long) size + removed > capacity
+                    || channel.size() != HEADER + (long) capacity * slotWidth
+                            + Long.BYTES) {
+                throw new IOException("Snapshot is truncated or corrupt.");
+            }
+
+            MapEntry<K, V>[] table =
+                    (MapEntry<K, V>[]) new MapEntry[capacity];
+            int batch = Math.max(1, BUFFER_BYTES / slotWidth);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(batch * slotWidth);
+            int live = 0;
+            int dead = 0;
+            for (int i = 0; i < capacity;) {
+                int count = Math.min(batch, capacity - i);
+                buffer.clear().limit(count * slotWidth);
+                fill(channel, buffer, crc);
+                for (int j = 0; j < count; j++, i++) {
+                    int offset = j * slotWidth;
+                    byte state = buffer.get(offset);
+                    if (state == EMPTY) {
+                        continue;
+                    }
+                    if (state != FULL && state != REMOVED) {
+                        throw new IOException("Snapshot is truncated or "
+                                + "corrupt.");
+                    }
+                    int hash = buffer.getInt(offset + 1);
+                    K key = keyCodec.read(buffer, offset + SLOT_HEADER);
+                    if (key.hashCode() != hash) {
+                        throw new IllegalArgumentException("Key " + key
+                                + " hashes differently than when the "
+                                + "snapshot was written.");
+                    }
+                    table[i] = new MapEntry<>(key, valueCodec.read(buffer,
+                            offset + SLOT_HEADER + keyWidth), hash);
+                    if (state == REMOVED) {
+                        table[i].setRemoved(true);
+                        dead++;
+                    } else {
+                        live++;
+                    }
+                }
+            }
+
+            long expected = crc.getValue();
+            if (fill(channel, ByteBuffer.allocate(Long.BYTES), null)
+                    .getLong() != expected) {
+                throw new IOException("Snapshot checksum does not match.");
+            }
+            if (live != size || dead != removed) {
+                throw new IOException("Snapshot is truncated or corrupt.");
+            }
+            return new HashMap<>(table, size, removed, powerOfTwo,
+                    incremental);
+        }
+    }
+
+    /**
+     * Reads until a buffer is full and flips it for reading.
+     *
+     * @param channel channel to read from
+     * @param buffer buffer to fill up to its limit
+     * @param crc checksum to add the bytes to, or null
+     * @return the buffer
+     * @throws IOException if the channel ends first
+     */
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer,
+            CRC32 crc) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot is truncated.");
+            }
+        }
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.duplicate());
+        }
+        return buffer;
+    }
+}
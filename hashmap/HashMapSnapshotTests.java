@@ -0,0 +1,174 @@
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * HashMapSnapshot Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class HashMapSnapshotTests {
+
+    private static final int TIMEOUT = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Checks that two tables have the same entries in the same slots.
+     *
+     * @param expected table that was written
+     * @param actual table that was read
+     */
+    private static void assertSameLayout(MapEntry<?, ?>[] expected,
+            MapEntry<?, ?>[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] == null) {
+                assertNull(actual[i]);
+            } else {
+                assertEquals(expected[i].getKey(), actual[i].getKey());
+                assertEquals(expected[i].getValue(), actual[i].getValue());
+                assertEquals(expected[i].getHash(), actual[i].getHash());
+                assertEquals(expected[i].isRemoved(), actual[i].isRemoved());
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01RoundTrip() throws IOException {
+        HashMap<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            map.set("key" + i, i);
+        }
+        for (int i = 0; i < 500; i += 7) {
+            map.delete("key" + i);
+        }
+        Path file = folder.getRoot().toPath().resolve("map.snap");
+        HashMapSnapshot.write(map, file, Codec.utf8(8), Codec.INT);
+
+        HashMap<String, Integer> copy =
+                HashMapSnapshot.read(file, Codec.utf8(8), Codec.INT);
+        assertSameLayout(map.getTable(), copy.getTable());
+        assertEquals(map.size(), copy.size());
+        assertEquals(map.removedCount(), copy.removedCount());
+        assertEquals((Integer) 8, copy.get("key8"));
+        assertFalse(copy.contains("key7"));
+
+        // The copy keeps working as a normal map.
+        assertNull(copy.set("key7", 7));
+        assertEquals(map.size() + 1, copy.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02PowerOfTwoIncremental() throws IOException {
+        HashMap<Long, Long> map = new HashMap<>(1, true, true);
+        for (long i = 0; i < 100; i++) {
+            map.set(i << 32, i);
+        }
+        Path file = folder.getRoot().toPath().resolve("map.snap");
+        HashMapSnapshot.write(map, file, Codec.LONG, Codec.LONG);
+
+        HashMap<Long, Long> copy =
+                HashMapSnapshot.read(file, Codec.LONG, Codec.LONG);
+        assertSameLayout(map.getTable(), copy.getTable());
+        assertTrue(copy.isPowerOfTwo());
+        assertTrue(copy.isIncremental());
+        for (long i = 0; i < 100; i++) {
+            assertEquals((Long) i, copy.get(i << 32));
+        }
+        copy.resizeBackingTable(1000);
+        assertEquals(1024, copy.getTable().length);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IOException.class)
+    public void test03Corrupted() throws IOException {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        map.set(1, 2);
+        Path file = folder.getRoot().toPath().resolve("map.snap");
+        HashMapSnapshot.write(map, file, Codec.INT, Codec.INT);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(),
+                "rw")) {
+            // Flip a bit in the first slot's value.
+            long slots = 8 * Integer.BYTES;
+            for (long pos = slots; pos < raf.length() - Long.BYTES;
+                    pos += 13) {
+                raf.seek(pos);
+                if (raf.read() != 0) {
+                    raf.seek(pos + 12);
+                    int b = raf.read();
+                    raf.seek(pos + 12);
+                    raf.write(b ^ 1);
+                    break;
+                }
+            }
+        }
+        HashMapSnapshot.read(file, Codec.INT, Codec.INT);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04WrongVersionOrCodec() throws IOException {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        map.set(1, 2);
+        Path file = folder.getRoot().toPath().resolve("map.snap");
+        HashMapSnapshot.write(map, file, Codec.INT, Codec.INT);
+        try {
+            HashMapSnapshot.read(file, Codec.INT, Codec.LONG);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(),
+                "rw")) {
+            raf.seek(Integer.BYTES);
+            raf.writeInt(HashMapSnapshot.VERSION + 1);
+        }
+        try {
+            HashMapSnapshot.read(file, Codec.INT, Codec.INT);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("version"));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test05PowerOfTwoFlagNeedsPowerOfTwoCapacity()
+            throws IOException {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        map.set(1, 2);
+        Path file = folder.getRoot().toPath().resolve("map.snap");
+        HashMapSnapshot.write(map, file, Codec.INT, Codec.INT);
+        HashMap<Integer, Integer> copy =
+                HashMapSnapshot.read(file, Codec.INT, Codec.INT);
+        assertFalse(copy.isPowerOfTwo());
+        assertFalse(copy.isIncremental());
+
+        // Claim power-of-two mode for the 9 slot table.
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(),
+                "rw")) {
+            raf.seek(2 * Integer.BYTES);
+            raf.writeInt(1);
+        }
+        try {
+            HashMapSnapshot.read(file, Codec.INT, Codec.INT);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupt"));
+        }
+    }
+}
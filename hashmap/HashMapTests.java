@@ -4,6 +4,7 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -489,7 +490,7 @@ public class HashMapTests {
         assertEquals("b", directory.remove(new HackedString("Hash1", 1)));
         assertEquals(3, directory.size());
 
-        assertEquals("c", directory.remove(new HackedString("Hash15", 1)));
+        assertEquals("c", directory.remove(new HackedString("Hash15", 15)));
         assertEquals(2, directory.size());
 
         MapEntry<String, String>[] expected =
@@ -822,6 +823,338 @@ public class HashMapTests {
         assertArrayEquals(new String[]{}, directory.values().toArray());
     }
 
+    @Test(timeout = TIMEOUT)
+    public void test48CachedHashes() {
+        CountingString.hashCodeCalls = 0;
+        CountingString.equalsCalls = 0;
+        HashMap<CountingString, String> map = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            map.set(new CountingString("Item" + i, 3), "Value" + i);
+        }
+        map.set(new CountingString("Other", 12), "x");
+        assertEquals(7, CountingString.hashCodeCalls);
+        assertEquals(15, CountingString.equalsCalls);
+
+        // The regrow reuses the cached hashes.
+        assertEquals(19, map.getTable().length);
+        assertEquals(3, map.getTable()[3].getHash());
+
+        // Entries with different hashes are skipped without calling equals.
+        CountingString.equalsCalls = 0;
+        assertEquals("x", map.get(new CountingString("Other", 12)));
+        assertEquals(1, CountingString.equalsCalls);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test49PowerOfTwo() {
+        HashMap<HackedString, String> map = new HashMap<>(9, true);
+        assertEquals(16, map.getTable().length);
+
+        for (int i = 0; i < 10; i++) {
+            map.set(new HackedString("Item" + i, i << 20), "Value" + i);
+        }
+        assertEquals(16, map.getTable().length);
+
+        map.set(new HackedString("Item10", 10 << 20), "Value10");
+        assertEquals(32, map.getTable().length);
+        for (int i = 0; i < 11; i++) {
+            assertEquals("Value" + i,
+                    map.get(new HackedString("Item" + i, i << 20)));
+        }
+
+        map.resizeBackingTable(40);
+        assertEquals(64, map.getTable().length);
+        assertEquals(11, map.size());
+
+        map.clear();
+        assertEquals(16, map.getTable().length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test50MinValueHash() {
+        directory.set(new HackedString("Min", Integer.MIN_VALUE), "a");
+        assertEquals("a", directory.getTable()[2].getValue());
+        assertEquals("a", directory.get(new HackedString("Min",
+                Integer.MIN_VALUE)));
+
+        HashMap<HackedString, String> map = new HashMap<>(9, true);
+        map.set(new HackedString("Min", Integer.MIN_VALUE), "a");
+        assertTrue(map.contains(new HackedString("Min", Integer.MIN_VALUE)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test51RemovedEntriesCompacted() {
+        directory.resizeBackingTable(20);
+        for (int i = 0; i < 1000; i++) {
+            directory.set(new HackedString("Item" + i, i), "Value" + i);
+            if (i >= 5) {
+                directory.remove(new HackedString("Item" + (i - 5), i - 5));
+            }
+            assertTrue(directory.removedCount() + directory.size()
+                    <= 0.8 * directory.getTable().length);
+        }
+
+        assertEquals("Churn at a steady size shouldn't regrow.",
+                20, directory.getTable().length);
+        assertEquals(5, directory.size());
+        assertEquals(5, directory.keySet().size());
+        assertEquals(5, directory.values().size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test52IncrementalResize() {
+        HashMap<HackedString, String> map = new HashMap<>(100, false, true);
+        for (int i = 0; i < 67; i++) {
+            map.set(new HackedString("Item" + i, i), "Value" + i);
+        }
+
+        // The regrowing set only moves a few slots into the new table.
+        map.set(new HackedString("Item67", 67), "Value67");
+        assertEquals(201, map.getTable().length);
+        int moved = 0;
+        for (MapEntry<HackedString, String> entry : map.getTable()) {
+            if (entry != null) {
+                moved++;
+            }
+        }
+        assertTrue(moved < 20);
+
+        // Both tables are searched until the move finishes.
+        assertEquals(68, map.size());
+        assertEquals(68, map.keySet().size());
+        assertEquals("Value60", map.get(new HackedString("Item60", 60)));
+        assertEquals("Value66", map.remove(new HackedString("Item66", 66)));
+        assertEquals("Value65", map.set(new HackedString("Item65", 65), "x"));
+        assertFalse(map.contains(new HackedString("Item66", 66)));
+
+        for (int i = 0; i < 20; i++) {
+            map.contains(new HackedString("Item0", 0));
+        }
+        moved = 0;
+        for (MapEntry<HackedString, String> entry : map.getTable()) {
+            if (entry != null) {
+                moved++;
+            }
+        }
+        assertEquals(67, moved);
+        assertEquals(0, map.removedCount());
+        assertEquals("x", map.get(new HackedString("Item65", 65)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test53IncrementalResizeRandom() {
+        HashMap<Integer, String> map = new HashMap<>(1, true, true);
+        java.util.HashMap<Integer, String> expected = new java.util.HashMap<>();
+        java.util.Random random = new java.util.Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), map.contains(key));
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                }
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.set(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test54PutAllSizesOnce() {
+        java.util.Map<HackedString, String> entries =
+                new java.util.LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            entries.put(new HackedString("Item" + i, i), "Value" + i);
+        }
+        directory.set(new HackedString("Item5", 5), "old");
+        directory.remove(new HackedString("Item5", 5));
+        directory.set(new HackedString("Item7", 7), "old");
+        directory.putAll(entries);
+
+        // ceil(101 / 0.67) in one resize, instead of regrowing 9 -> 19 -> ...
+        assertEquals(151, directory.getTable().length);
+        assertEquals(100, directory.size());
+        assertEquals(0, directory.removedCount());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Value" + i,
+                    directory.get(new HackedString("Item" + i, i)));
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void test55PutAllParallel() {
+        int n = HashMap.PARALLEL_THRESHOLD * 2;
+        Integer[] keys = new Integer[n];
+        String[] values = new String[n];
+        java.util.Random random = new java.util.Random(1332);
+        for (int i = 0; i < n; i++) {
+            // Duplicates, and clustered keys so probes spill across ranges.
+            keys[i] = random.nextInt(n / 2) / 4 * 4;
+            values[i] = "v" + i;
+        }
+        for (boolean powerOfTwo : new boolean[] {false, true}) {
+            HashMap<Integer, String> map = new HashMap<>(1, powerOfTwo);
+            java.util.HashMap<Integer, String> expected =
+                    new java.util.HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                map.set(i * 4 + 1, "x");
+                expected.put(i * 4 + 1, "x");
+            }
+            map.putAll(keys, values);
+            for (int i = 0; i < n; i++) {
+                expected.put(keys[i], values[i]);
+            }
+
+            assertEquals(expected.size(), map.size());
+            for (java.util.Map.Entry<Integer, String> e : expected.entrySet()) {
+                assertEquals(e.getValue(), map.get(e.getKey()));
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void test56PutAllNullValue() {
+        directory.set(new HackedString("Item1", 1), "Value1");
+        try {
+            directory.putAll(new HackedString[] {
+                new HackedString("Item2", 2), new HackedString("Item3", 3)},
+                new String[] {"Value2", null});
+        } finally {
+            assertEquals(1, directory.size());
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalStateException.class)
+    public void test57PutAllCapacityLimit() {
+        assertEquals(Integer.MAX_VALUE,
+                new HashMap<Integer, Integer>().capacityToFit(1_500_000_000));
+        HashMap<Integer, Integer> map = new HashMap<>(9, true);
+        assertEquals(15, map.capacityToFit(10));
+        // Past 0.67 of 1 << 30 the table is clamped rather than overflowing.
+        assertEquals(1 << 30, map.capacityToFit(800_000_000));
+        map.capacityToFit(900_000_000);
+    }
+
+    @Test(timeout = 2000)
+    public void test58ParallelResize() {
+        for (boolean powerOfTwo : new boolean[] {false, true}) {
+            HashMap<Integer, Integer> map = new HashMap<>(1, powerOfTwo);
+            int n = HashMap.PARALLEL_THRESHOLD + 1000;
+            for (int i = 0; i < n + 5000; i++) {
+                // Runs of consecutive keys make long clusters.
+                map.set(i / 16 * 1024 + i % 16, i);
+            }
+            for (int i = n; i < n + 5000; i++) {
+                map.remove(i / 16 * 1024 + i % 16);
+            }
+            map.resizeBackingTable(n * 2 - 1);
+
+            assertEquals(n, map.size());
+            assertEquals(0, map.removedCount());
+            int live = 0;
+            for (MapEntry<Integer, Integer> entry : map.getTable()) {
+                if (entry != null) {
+                    assertFalse(entry.isRemoved());
+                    live++;
+                }
+            }
+            assertEquals(n, live);
+            for (int i = 0; i < n; i++) {
+                assertEquals((Integer) i, map.get(i / 16 * 1024 + i % 16));
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test59LiveViews() {
+        HashMap<Integer, String> map = new HashMap<>(1, false, true);
+        for (int i = 0; i < 50; i++) {
+            map.set(i, "v" + i);
+        }
+        map.remove(7);
+        Set<Integer> keys = map.keyView();
+        java.util.Collection<String> values = map.valueView();
+        assertEquals(map.keySet(), new java.util.HashSet<>(keys));
+        assertEquals(49, values.size());
+        assertFalse(keys.contains(7));
+        assertFalse(values.contains("v7"));
+
+        // The views follow the map and write through to it.
+        map.set(7, "again");
+        assertTrue(keys.contains(7));
+        assertTrue(keys.remove(8));
+        assertFalse(map.contains(8));
+        java.util.Iterator<String> it = values.iterator();
+        while (it.hasNext()) {
+            if (it.next().equals("v9")) {
+                it.remove();
+            }
+        }
+        assertFalse(map.contains(9));
+        assertEquals(48, keys.size());
+
+        int[] sum = new int[1];
+        map.forEach((k, v) -> sum[0] += k);
+        assertEquals(50 * 49 / 2 - 8 - 9, sum[0]);
+
+        HashMap<Integer, String>.Cursor cursor = map.cursor();
+        int count = 0;
+        while (cursor.next()) {
+            assertEquals(map.get(cursor.key()), cursor.value());
+            cursor.setValue("c" + cursor.key());
+            count++;
+        }
+        assertEquals(48, count);
+        assertEquals("c7", map.get(7));
+        cursor.reset();
+        assertTrue(cursor.next());
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void test60ViewsFailFastInDebug() {
+        org.junit.Assume.assumeTrue(HashMap.DEBUG);
+        HashMap<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            map.set(i, "v" + i);
+        }
+        for (Integer key : map.keyView()) {
+            map.set(key + 100, "new");
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void test61SpliteratorAndStreams() {
+        HashMap<Integer, Integer> map = new HashMap<>(1, true);
+        int n = HashMap.PARALLEL_THRESHOLD + 100;
+        for (int i = 0; i < n + 100; i++) {
+            map.set(i, i);
+        }
+        for (int i = n; i < n + 100; i++) {
+            map.remove(i);
+        }
+        long expected = (long) n * (n - 1) / 2;
+
+        java.util.Spliterator<MapEntry<Integer, Integer>> split =
+                map.spliterator();
+        assertEquals(n, split.getExactSizeIfKnown());
+        java.util.Spliterator<MapEntry<Integer, Integer>> prefix =
+                split.trySplit();
+        assertEquals(-1, split.getExactSizeIfKnown());
+        assertEquals(n, split.estimateSize() + prefix.estimateSize());
+
+        assertEquals(n, map.entryStream().parallel().count());
+        assertEquals(expected, map.entryStream().parallel()
+                .mapToLong(MapEntry::getValue).sum());
+        assertEquals(expected, (long) map.reduce((k, v) -> (long) v, 0L,
+                Long::sum));
+        java.util.concurrent.atomic.LongAdder sum =
+                new java.util.concurrent.atomic.LongAdder();
+        map.parallelForEach((k, v) -> sum.add(k));
+        assertEquals(expected, sum.sum());
+    }
+
     private MapEntry removed(MapEntry entry){
         entry.setRemoved(true);
         return entry;
@@ -874,4 +1207,41 @@ public class HashMapTests {
             return s;
         }
     }
-}
\ No newline at end of file
+
+    private static class CountingString {
+        private static int hashCodeCalls;
+        private static int equalsCalls;
+        private String s;
+        private int hashcode;
+
+        /**
+         * Create a wrapper object around a String object that counts how
+         * often the map hashes and compares it.
+         *
+         * @param s        string to store in this object
+         * @param hashcode the hashcode to return
+         */
+        public CountingString(String s, int hashcode) {
+            this.s = s;
+            this.hashcode = hashcode;
+        }
+
+        @Override
+        public int hashCode() {
+            hashCodeCalls++;
+            return hashcode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            equalsCalls++;
+            return o instanceof CountingString
+                    && s.equals(((CountingString) o).s);
+        }
+
+        @Override
+        public String toString() {
+            return s;
+        }
+    }
+}
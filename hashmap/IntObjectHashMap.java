@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A linear probing hash map from {@code int} keys to {@code Object}
+ * values that never boxes a key or allocates an entry.
+ *
+ * Keys and values live in flat primitive arrays with a parallel array of
+ * slot states (empty, full or removed), so every {@code int} is usable as a
+ * key. Probing, removed slot reuse and regrow follow {@code HashMap} in
+ * power-of-two mode.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class IntObjectHashMap<V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private int[] keys;
+    private Object[] values;
+    private byte[] states;
+    private int size;
+    private int removed;
+
+    /**
+     * Create a map with no entries and room for at least
+     * {@code HashMap.STARTING_SIZE} slots.
+     */
+    public IntObjectHashMap() {
+        this(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create a map with no entries.
+     *
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Replaces the backing arrays with empty ones.
+     *
+     * @param length requested capacity, rounded up to a power of two
+     */
+    private void allocate(int length) {
+        int capacity = length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        states = new byte[capacity];
+        removed = 0;
+    }
+
+    /**
+     * Gets the home slot of a key.
+     *
+     * @param key key to hash
+     * @return index of the slot the key belongs in
+     */
+    private int indexFor(int key) {
+        return HashMap.spread(key) & (keys.length - 1);
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present. Does not allocate unless the table has to regrow.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return the old value associated with the key, or null if the key
+     * was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V set(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot add null value to "
+                    + "hash map.");
+        }
+
+        if (((size + 1) / (double) keys.length) > HashMap.MAX_LOAD_FACTOR) {
+            resizeBackingTable(2 * keys.length);
+        } else if (((size + removed + 1) / (double) keys.length)
+                > HashMap.MAX_OCCUPIED_FACTOR) {
+            resizeBackingTable(keys.length);
+        }
+
+        int mask = keys.length - 1;
+        int index = indexFor(key);
+        int firstRemoved = -1;
+        for (int probes = 0; probes <= mask && states[index] != EMPTY;
+                probes++) {
+            if (keys[index] == key) {
+                if (states[index] == FULL) {
+                    V oldValue = (V) values[index];
+                    values[index] = value;
+                    return oldValue;
+                }
+                // A removed copy of the key means it can't be further along.
+                if (firstRemoved == -1) {
+                    firstRemoved = index;
+                }
+                break;
+            }
+            if (states[index] == REMOVED && firstRemoved == -1) {
+                firstRemoved = index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (firstRemoved != -1) {
+            index = firstRemoved;
+            removed--;
+        } else if (states[index] != EMPTY) {
+            throw new IllegalStateException("Backing table is full.");
+        }
+        keys[index] = key;
+        values[index] = value;
+        states[index] = FULL;
+        size++;
+        return null;
+    }
+
+    /**
+     * Finds the slot holding a live copy of {@code key}.
+     *
+     * @param key key to look for
+     * @return index of the slot, or -1 if the key is not in the map
+     */
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = indexFor(key);
+        for (int probes = 0; probes <= mask && states[index] != EMPTY;
+                probes++) {
+            if (keys[index] == key) {
+                return states[index] == FULL ? index : -1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    @SuppressWarnings("unchecked")
+    public V delete(int key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        V value = (V) values[index];
+        values[index] = null;
+        states[index] = REMOVED;
+        size--;
+        removed++;
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return (V) values[index];
+    }
+
+    /**
+     * Gets the value associated with the given key, or a default if the key
+     * is not in the map. Unlike {@code get} this never throws, so misses are
+     * as cheap as hits.
+     *
+     * @param key key to look up
+     * @param defaultValue value to return if the key is not in the map
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int index = indexOf(key);
+        return index == -1 ? defaultValue : (V) values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(int key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Clears the map and resets the backing arrays.
+     */
+    public void clear() {
+        allocate(HashMap.STARTING_SIZE);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the keys in the map, in slot order.
+     *
+     * @return new array of the keys in the map
+     */
+    public int[] keys() {
+        int[] res = new int[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) {
+                res[count++] = keys[i];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the values in the map, in slot order.
+     *
+     * @return new list of the values in the map
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> res = new ArrayList<>(size);
+        for (int i = 0; i < values.length; i++) {
+            if (states[i] == FULL) {
+                res.add((V) values[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resizes the backing arrays to at least {@code length} slots, rehashing
+     * every live entry. Removed slots are dropped.
+     *
+     * @param length new minimum length of the backing arrays
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        byte[] oldStates = states;
+        allocate(length);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == FULL) {
+                int index = indexFor(oldKeys[i]);
+                while (states[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                states[index] = FULL;
+            }
+        }
+    }
+
+    /**
+     * Gets the current load factor of the map.
+     *
+     * @return size divided by the length of the backing arrays
+     */
+    public float load() {
+        return ((float) size) / keys.length;
+    }
+}
@@ -0,0 +1,644 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A non-blocking linear probing hash map with the same API as
+ * {@code HashMap}.
+ *
+ * Every slot holds an immutable node and is only ever changed with a CAS. A
+ * key keeps the slot it first claimed for the life of a table: overwriting
+ * swaps in a new node for the same key, and deleting swaps in a node with no
+ * value (the removed entry). That means probing never has to deal with keys
+ * moving around under it.
+ *
+ * Resizing allocates the next table and then copies slots over
+ * incrementally. Each slot is first frozen, then copied if it still holds a
+ * value, then marked moved. Writers that run into a resize copy a chunk of
+ * slots (and always the slot for their own key) before writing to the new
+ * table, so no single thread does the whole copy. Readers never help: a
+ * frozen slot still has the current value, and a moved slot sends them on to
+ * the next table.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class LockFreeHashMap<K, V> {
+
+    private static final int LIVE = 0;
+    private static final int FROZEN = 1;
+    private static final int MOVED = 2;
+    private static final int MIN_CAPACITY = 16;
+    private static final int COPY_CHUNK = 16;
+
+    // Marks an empty slot that was frozen during a resize. It is the only
+    // node with a null key.
+    private static final Node<Object, Object> EMPTY_MOVED =
+            new Node<>(null, null, 0, MOVED);
+
+    private final AtomicReference<Table<K, V>> root;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Create a lock-free hash map with no entries.
+     */
+    public LockFreeHashMap() {
+        this(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create a lock-free hash map with no entries.
+     *
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     * of at least {@code MIN_CAPACITY}
+     */
+    public LockFreeHashMap(int initialCapacity) {
+        root = new AtomicReference<>(new Table<>(initialCapacity));
+    }
+
+    /**
+     * Gets the marker for a frozen empty slot.
+     *
+     * @return the shared empty moved node
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> emptyMoved() {
+        return (Node<K, V>) EMPTY_MOVED;
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+
+        return update(key, value);
+    }
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        V value = update(key, null);
+        if (value == null) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        V value = lookup(key);
+        if (value == null) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        return lookup(key) != null;
+    }
+
+    /**
+     * Replaces the backing table with an empty one. Writes that race with
+     * {@code clear} may land in the discarded table.
+     */
+    public void clear() {
+        root.set(new Table<>(HashMap.STARTING_SIZE));
+        size.reset();
+    }
+
+    /**
+     * Gets the number of entries in the map. The count is exact when no
+     * writes are in progress.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Gets a copy of the keys in the map. Entries written while the copy is
+     * being made may or may not be included.
+     *
+     * @return set of keys in the map
+     */
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        collect(res, null);
+        return res;
+    }
+
+    /**
+     * Gets a copy of the values in the map. Entries written while the copy
+     * is being made may or may not be included.
+     *
+     * @return list of values in the map
+     */
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        collect(null, res);
+        return res;
+    }
+
+    /**
+     * Resizes the backing table to at least {@code length} slots, finishing
+     * the copy before returning.
+     *
+     * @param length new minimum length of the backing table
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size()) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        while (true) {
+            Table<K, V> table = finishAll();
+            if (table.next.compareAndSet(null, new Table<>(length))) {
+                finishCopy(table);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finishes any resize in progress and materializes the backing table as
+     * a {@code MapEntry} array. Removed keys show up as removed entries.
+     *
+     * @return snapshot of the backing table
+     */
+    @SuppressWarnings("unchecked")
+    public MapEntry<K, V>[] getTable() {
+        AtomicReferenceArray<Node<K, V>> slots = finishAll().slots;
+        MapEntry<K, V>[] table =
+                (MapEntry<K, V>[]) new MapEntry[slots.length()];
+        for (int i = 0; i < table.length; i++) {
+            Node<K, V> node = slots.get(i);
+            if (node != null && node.key != null) {
+                table[i] = new MapEntry<>(node.key, node.value, node.hash);
+                table[i].setRemoved(node.value == null);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Looks a key up without writing anything.
+     *
+     * @param key key to look for
+     * @return the value, or null if the key is not in the map
+     */
+    private V lookup(K key) {
+        int hash = key.hashCode();
+        int spread = HashMap.spread(hash);
+        Table<K, V> table = root.get();
+        while (table != null) {
+            int mask = table.mask;
+            int index = spread & mask;
+            boolean forward = false;
+            for (int probes = 0; probes <= mask; probes++) {
+                Node<K, V> node = table.slots.get(index);
+                if (node == null) {
+                    return null;
+                }
+                if (node.key == null) {
+                    forward = true;
+                    break;
+                }
+                if (node.hash == hash && node.key.equals(key)) {
+                    if (node.state != MOVED) {
+                        return node.value;
+                    }
+                    forward = true;
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            if (!forward && table.next.get() == null) {
+                return null;
+            }
+            table = table.next.get();
+        }
+        return null;
+    }
+
+    /**
+     * Sets or removes a key, helping with any resize it runs into.
+     *
+     * @param key key to write
+     * @param value new value, or null to remove the key
+     * @return the previous value, or null if the key was not in the map
+     */
+    private V update(K key, V value) {
+        int hash = key.hashCode();
+        int spread = HashMap.spread(hash);
+        Table<K, V> from = null;
+        Table<K, V> table = root.get();
+        while (true) {
+            Table<K, V> next = table.next.get();
+            if (next != null) {
+                helpCopy(table, next);
+            }
+
+            int mask = table.mask;
+            int index = spread & mask;
+            int probes = 0;
+            boolean forward = false;
+            boolean restart = false;
+            while (probes <= mask) {
+                Node<K, V> node = table.slots.get(index);
+                if (node == null) {
+                    if (next != null) {
+                        // Freeze the empty slot so no one adds this key here.
+                        copySlot(table, index, next);
+                        continue;
+                    }
+                    if (value == null) {
+                        return null;
+                    }
+                    if (!reserve(table, from)) {
+                        makeRoom(table, from);
+                        restart = true;
+                        break;
+                    }
+                    if (table.slots.compareAndSet(index, null,
+                            new Node<>(key, value, hash, LIVE))) {
+                        size.increment();
+                        return null;
+                    }
+                    table.used.decrementAndGet();
+                    next = table.next.get();
+                    continue;
+                }
+                if (node.key == null) {
+                    forward = true;
+                    break;
+                }
+                if (node.hash == hash && node.key.equals(key)) {
+                    if (node.state != LIVE || next != null) {
+                        copySlot(table, index, table.next.get());
+                        forward = true;
+                        break;
+                    }
+                    if (value == null && node.value == null) {
+                        return null;
+                    }
+                    if (table.slots.compareAndSet(index, node,
+                            new Node<>(key, value, hash, LIVE))) {
+                        if (node.value == null) {
+                            size.increment();
+                        } else if (value == null) {
+                            size.decrement();
+                        }
+                        return node.value;
+                    }
+                    next = table.next.get();
+                    continue;
+                }
+                index = (index + 1) & mask;
+                probes++;
+            }
+
+            if (restart) {
+                from = null;
+                table = root.get();
+            } else if (forward || table.next.get() != null) {
+                from = table;
+                table = table.next.get();
+            } else {
+                // Every slot holds some other key; only possible for tiny
+                // tables under heavy contention.
+                startResize(table);
+            }
+        }
+    }
+
+    /**
+     * Reserves a slot in {@code table} for a new key. While {@code from} is
+     * still being copied into {@code table}, enough room is held back for
+     * every key it could still copy.
+     *
+     * @param table table the key will be added to
+     * @param from table being copied into {@code table}, or null
+     * @return true if the slot was reserved
+     */
+    private boolean reserve(Table<K, V> table, Table<K, V> from) {
+        int limit = table.limit;
+        if (from != null && !from.copied()) {
+            limit -= from.used.get();
+        }
+        if (table.used.incrementAndGet() <= limit) {
+            return true;
+        }
+        table.used.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Called when a new key doesn't fit. Finishes copying into
+     * {@code table} if that is still going, otherwise starts growing it.
+     *
+     * @param table table the key didn't fit in
+     * @param from table being copied into {@code table}, or null
+     */
+    private void makeRoom(Table<K, V> table, Table<K, V> from) {
+        if (from != null && !from.copied()) {
+            finishCopy(from);
+        } else {
+            startResize(table);
+        }
+    }
+
+    /**
+     * Installs the next table for {@code table} if no one else has. The next
+     * table doubles the capacity unless most of the used slots hold removed
+     * keys, in which case it just drops them.
+     *
+     * @param table table to resize
+     */
+    private void startResize(Table<K, V> table) {
+        if (table.next.get() == null) {
+            int capacity = table.slots.length();
+            long live = size.sum();
+            int length = live * 4 >= capacity ? 2 * capacity : capacity;
+            table.next.compareAndSet(null, new Table<>(length));
+        }
+    }
+
+    /**
+     * Claims and copies the next chunk of slots of a table being resized.
+     *
+     * @param table table being resized
+     * @param next table being copied into
+     */
+    private void helpCopy(Table<K, V> table, Table<K, V> next) {
+        int length = table.slots.length();
+        int start = table.copyIndex.getAndAdd(COPY_CHUNK);
+        if (start >= length) {
+            return;
+        }
+        for (int i = start; i < Math.min(length, start + COPY_CHUNK); i++) {
+            copySlot(table, i, next);
+        }
+    }
+
+    /**
+     * Copies every remaining slot of a table being resized.
+     *
+     * @param table table being resized
+     */
+    private void finishCopy(Table<K, V> table) {
+        Table<K, V> next = table.next.get();
+        for (int i = 0; i < table.slots.length(); i++) {
+            copySlot(table, i, next);
+        }
+    }
+
+    /**
+     * Finishes every resize in progress.
+     *
+     * @return the root table once nothing is being copied
+     */
+    private Table<K, V> finishAll() {
+        Table<K, V> table = root.get();
+        while (table.next.get() != null) {
+            finishCopy(table);
+            promote();
+            table = root.get();
+        }
+        return table;
+    }
+
+    /**
+     * Records a slot marked moved, and once a table has no slots left to
+     * copy promotes its next table to the root.
+     *
+     * @param table table being resized
+     */
+    private void slotMoved(Table<K, V> table) {
+        if (table.copyDone.incrementAndGet() == table.slots.length()) {
+            promote();
+        }
+    }
+
+    /**
+     * Moves the root past every table that has been fully copied.
+     */
+    private void promote() {
+        Table<K, V> current = root.get();
+        while (current.copied()) {
+            root.compareAndSet(current, current.next.get());
+            current = root.get();
+        }
+    }
+
+    /**
+     * Moves one slot of a table being resized: freezes it, copies its value
+     * into {@code next} if it has one, then marks it moved.
+     *
+     * @param table table being resized
+     * @param index slot to move
+     * @param next table being copied into
+     */
+    private void copySlot(Table<K, V> table, int index, Table<K, V> next) {
+        while (true) {
+            Node<K, V> node = table.slots.get(index);
+            if (node == null) {
+                if (table.slots.compareAndSet(index, null, emptyMoved())) {
+                    slotMoved(table);
+                    return;
+                }
+                continue;
+            }
+            if (node.state == MOVED) {
+                return;
+            }
+            if (node.state == LIVE) {
+                table.slots.compareAndSet(index, node,
+                        new Node<>(node.key, node.value, node.hash, FROZEN));
+                continue;
+            }
+            if (node.value != null) {
+                copyInto(next, node);
+            }
+            if (table.slots.compareAndSet(index, node,
+                    new Node<K, V>(node.key, null, node.hash, MOVED))) {
+                slotMoved(table);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a frozen node's key and value to the next table unless the key is
+     * already there, in which case whatever is there is newer.
+     *
+     * @param next table being copied into
+     * @param node frozen node from the old table
+     */
+    private void copyInto(Table<K, V> next, Node<K, V> node) {
+        int mask = next.mask;
+        int index = HashMap.spread(node.hash) & mask;
+        int probes = 0;
+        while (probes <= mask) {
+            Node<K, V> curr = next.slots.get(index);
+            if (curr == null) {
+                next.used.incrementAndGet();
+                if (next.slots.compareAndSet(index, null,
+                        new Node<>(node.key, node.value, node.hash, LIVE))) {
+                    return;
+                }
+                next.used.decrementAndGet();
+                continue;
+            }
+            if (curr.key == null || (curr.hash == node.hash
+                    && curr.key.equals(node.key))) {
+                return;
+            }
+            index = (index + 1) & mask;
+            probes++;
+        }
+        throw new IllegalStateException("Backing table is full.");
+    }
+
+    /**
+     * Collects live keys and values from every table, newest first, so a key
+     * is reported with its latest value.
+     *
+     * @param keys set to add keys to, or null
+     * @param values list to add values to, or null
+     */
+    private void collect(Set<K> keys, List<V> values) {
+        List<Table<K, V>> tables = new ArrayList<>();
+        for (Table<K, V> t = root.get(); t != null; t = t.next.get()) {
+            tables.add(0, t);
+        }
+        Set<K> seen = new HashSet<>();
+        for (Table<K, V> table : tables) {
+            for (int i = 0; i < table.slots.length(); i++) {
+                Node<K, V> node = table.slots.get(i);
+                if (node == null || node.key == null || node.state == MOVED
+                        || !seen.add(node.key) || node.value == null) {
+                    continue;
+                }
+                if (keys != null) {
+                    keys.add(node.key);
+                }
+                if (values != null) {
+                    values.add(node.value);
+                }
+            }
+        }
+    }
+
+    /**
+     * An immutable slot. A live node with a null value is a removed key.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final int hash;
+        private final int state;
+
+        /**
+         * Create a node.
+         *
+         * @param key key held by the node
+         * @param value value held by the node, null if the key was removed
+         * @param hash {@code key.hashCode()}
+         * @param state LIVE, FROZEN or MOVED
+         */
+        private Node(K key, V value, int hash, int state) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.state = state;
+        }
+    }
+
+    /**
+     * One generation of the backing table.
+     */
+    private static final class Table<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> slots;
+        private final int mask;
+        private final int limit;
+        private final AtomicReference<Table<K, V>> next =
+                new AtomicReference<>();
+        // Slots holding a key, including removed keys.
+        private final AtomicInteger used = new AtomicInteger();
+        private final AtomicInteger copyIndex = new AtomicInteger();
+        private final AtomicInteger copyDone = new AtomicInteger();
+
+        /**
+         * Create an empty table.
+         *
+         * @param length requested capacity
+         */
+        private Table(int length) {
+            int capacity = Math.max(MIN_CAPACITY,
+                    Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+            slots = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            limit = (int) (capacity * HashMap.MAX_LOAD_FACTOR);
+        }
+
+        /**
+         * Returns whether every slot of this table has been moved to the
+         * next one.
+         *
+         * @return true if this table is fully copied
+         */
+        private boolean copied() {
+            return next.get() != null && copyDone.get() == slots.length();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LockFreeHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class LockFreeHashMapTests {
+
+    private LockFreeHashMap<Integer, String> directory;
+    private static final int TIMEOUT = 200;
+    private static final int STRESS_TIMEOUT = 20000;
+    private static final int THREADS = 8;
+
+    @Before
+    public void setUp() {
+        directory = new LockFreeHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01NodeStates() {
+        // A key keeps the slot it claimed: overwrites and deletes swap the
+        // node in place, and a removed node still holds the key.
+        assertNull(directory.set(8, "a"));
+        int slot = slotOf(8);
+        assertEquals("a", directory.set(8, "b"));
+        assertEquals(slot, slotOf(8));
+        assertFalse(directory.getTable()[slot].isRemoved());
+
+        assertEquals("b", directory.delete(8));
+        MapEntry<Integer, String> removed = directory.getTable()[slot];
+        assertTrue(removed.isRemoved());
+        assertEquals(Integer.valueOf(8), removed.getKey());
+        assertNull(removed.getValue());
+        assertFalse(directory.contains(8));
+        assertEquals(0, directory.size());
+
+        assertNull(directory.set(8, "c"));
+        assertEquals(slot, slotOf(8));
+        assertEquals("c", directory.getTable()[slot].getValue());
+
+        // Copying to a new table drops removed nodes and keeps live ones.
+        assertNull(directory.set(7, "d"));
+        assertEquals("d", directory.delete(7));
+        int length = directory.getTable().length;
+        directory.resizeBackingTable(2 * length);
+        assertEquals(2 * length, directory.getTable().length);
+        assertEquals(-1, slotOf(7));
+        assertEquals("c", directory.get(8));
+        assertEquals(1, directory.size());
+    }
+
+    /**
+     * Finds the slot holding a key in the current table, removed or not.
+     *
+     * @param key key to look for
+     * @return index of its slot, or -1 if no slot holds it
+     */
+    private int slotOf(int key) {
+        MapEntry<Integer, String>[] table = directory.getTable();
+        int slot = -1;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null && table[i].getKey() == key) {
+                assertEquals(-1, slot);
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test02GetRemoved() {
+        directory.set(8, "a");
+        directory.delete(8);
+        directory.get(8);
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test03RandomOperations() {
+        java.util.HashMap<Integer, String> expected = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key),
+                        directory.contains(key));
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), directory.delete(key));
+                }
+            } else {
+                assertEquals(expected.put(key, "v" + i),
+                        directory.set(key, "v" + i));
+            }
+        }
+
+        assertEquals(expected.size(), directory.size());
+        assertEquals(expected.keySet(), directory.keySet());
+        assertEquals(expected.size(), directory.values().size());
+
+        directory.resizeBackingTable(expected.size());
+        for (Integer key : expected.keySet()) {
+            assertEquals(expected.get(key), directory.get(key));
+        }
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test04ConcurrentDisjointAdds() throws Throwable {
+        ThreadHarness.runThreads(THREADS, id -> {
+            for (int i = 0; i < 20000; i++) {
+                int key = i * THREADS + id;
+                assertNull(directory.set(key, "v" + key));
+                assertEquals("v" + key, directory.get(key));
+                if (i % 4 == 0) {
+                    assertEquals("v" + key, directory.delete(key));
+                }
+            }
+        });
+
+        assertEquals(15000 * THREADS, directory.size());
+        assertEquals(15000 * THREADS, directory.keySet().size());
+        for (int key = 0; key < 20000 * THREADS; key++) {
+            assertEquals((key / THREADS) % 4 != 0, directory.contains(key));
+        }
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test05Linearizable() throws Throwable {
+        Random random = new Random(1332);
+        for (int trial = 0; trial < 200; trial++) {
+            LockFreeHashMap<Integer, String> map = new LockFreeHashMap<>(1);
+            List<List<Op>> histories = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                histories.add(new ArrayList<>());
+            }
+            long seed = random.nextLong();
+            AtomicInteger running = new AtomicInteger(3);
+
+            // Thread 3 churns unrelated keys until all three checked threads
+            // are done, so their operations keep running into resizes.
+            ThreadHarness.runThreads(4, id -> {
+                Random r = new Random(seed + id);
+                if (id == 3) {
+                    for (int i = 0; running.get() > 0 && i < 5000; i++) {
+                        map.set(100 + r.nextInt(200), "churn");
+                        if (r.nextBoolean()) {
+                            try {
+                                map.delete(100 + r.nextInt(200));
+                            } catch (NoSuchElementException e) {
+                                // fine, it's just churn
+                            }
+                        }
+                    }
+                    return;
+                }
+                for (int i = 0; i < 10; i++) {
+                    histories.get(id).add(Op.run(map, r.nextInt(2),
+                            r.nextInt(3), "t" + id + "-" + i));
+                }
+                running.decrementAndGet();
+            });
+
+            for (int key = 0; key < 2; key++) {
+                List<Op> ops = new ArrayList<>();
+                for (List<Op> history : histories) {
+                    for (Op op : history) {
+                        if (op.key == key) {
+                            ops.add(op);
+                        }
+                    }
+                }
+                assertTrue("History for key " + key + " in trial " + trial
+                        + " is not linearizable: " + ops,
+                        Op.linearizable(ops));
+            }
+        }
+    }
+
+    /**
+     * One recorded operation on a single key, with the times it was invoked
+     * and returned.
+     */
+    private static final class Op {
+        private static final int SET = 0;
+        private static final int DELETE = 1;
+        private static final int GET = 2;
+
+        private int key;
+        private int kind;
+        private String arg;
+        private String result;
+        private long invoked;
+        private long returned;
+
+        /**
+         * Runs an operation against the map and records it.
+         *
+         * @param map map under test
+         * @param key key to operate on
+         * @param kind SET, DELETE or GET
+         * @param arg value to set, unique across the trial
+         * @return the recorded operation
+         */
+        private static Op run(LockFreeHashMap<Integer, String> map, int key,
+                int kind, String arg) {
+            Op op = new Op();
+            op.key = key;
+            op.kind = kind;
+            op.arg = arg;
+            op.invoked = System.nanoTime();
+            try {
+                if (kind == SET) {
+                    op.result = map.set(key, arg);
+                } else if (kind == DELETE) {
+                    op.result = map.delete(key);
+                } else {
+                    op.result = map.get(key);
+                }
+            } catch (NoSuchElementException e) {
+                op.result = null;
+            }
+            op.returned = System.nanoTime();
+            return op;
+        }
+
+        /**
+         * Checks whether a single-key history has a legal sequential order
+         * that respects real-time order (Wing and Gong's search, memoized on
+         * the set of operations already ordered and the current value).
+         *
+         * @param ops every operation on one key
+         * @return true if the history is linearizable
+         */
+        private static boolean linearizable(List<Op> ops) {
+            return search(ops, 0L, null, new HashSet<>());
+        }
+
+        /**
+         * Tries every operation that could go next.
+         *
+         * @param ops every operation on one key
+         * @param done bit mask of operations already ordered
+         * @param value value of the key after those operations
+         * @param failed states already known to be dead ends
+         * @return true if the remaining operations can be ordered
+         */
+        private static boolean search(List<Op> ops, long done, String value,
+                Set<String> failed) {
+            if (done == (1L << ops.size()) - 1) {
+                return true;
+            }
+            String state = done + ":" + value;
+            if (failed.contains(state)) {
+                return false;
+            }
+            long earliestReturn = Long.MAX_VALUE;
+            for (int i = 0; i < ops.size(); i++) {
+                if ((done & (1L << i)) == 0) {
+                    earliestReturn = Math.min(earliestReturn,
+                            ops.get(i).returned);
+                }
+            }
+            for (int i = 0; i < ops.size(); i++) {
+                Op op = ops.get(i);
+                // Only operations invoked before every pending one returned
+                // can be first.
+                if ((done & (1L << i)) != 0 || op.invoked > earliestReturn) {
+                    continue;
+                }
+                boolean legal = value == null ? op.result == null
+                        : value.equals(op.result);
+                if (!legal) {
+                    continue;
+                }
+                String after = op.kind == SET ? op.arg
+                        : op.kind == DELETE ? null : value;
+                if (search(ops, done | (1L << i), after, failed)) {
+                    return true;
+                }
+            }
+            failed.add(state);
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s)=%s",
+                    kind == SET ? "set" : kind == DELETE ? "delete" : "get",
+                    kind == SET ? arg : "", result);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of {@code LockFreeHashMap} against a
+ * {@code HashMap} guarded by one global lock.
+ *
+ * Usage: {@code java LockFreeHashMapThroughput [threads] [seconds]
+ * [read percent]}
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class LockFreeHashMapThroughput {
+
+    private static final int KEYS = 1 << 16;
+
+    /**
+     * The operations the workload needs, so both maps run the same code.
+     */
+    private interface Target {
+        /**
+         * Sets a key.
+         *
+         * @param key key to set
+         * @param value value to set
+         */
+        void set(Integer key, Integer value);
+
+        /**
+         * Reads a key.
+         *
+         * @param key key to read
+         */
+        void get(Integer key);
+
+        /**
+         * Removes a key if present.
+         *
+         * @param key key to remove
+         */
+        void delete(Integer key);
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args threads, seconds and read percent, all optional
+     * @throws InterruptedException if interrupted while waiting on workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int readPercent = args.length > 2 ? Integer.parseInt(args[2]) : 90;
+
+        HashMap<Integer, Integer> locked = new HashMap<>();
+        LockFreeHashMap<Integer, Integer> lockFree = new LockFreeHashMap<>();
+        for (int i = 0; i < KEYS / 2; i++) {
+            locked.set(i, i);
+            lockFree.set(i, i);
+        }
+
+        double lockedOps = run(new Target() {
+            @Override
+            public synchronized void set(Integer key, Integer value) {
+                locked.set(key, value);
+            }
+
+            @Override
+            public synchronized void get(Integer key) {
+                if (locked.contains(key)) {
+                    locked.get(key);
+                }
+            }
+
+            @Override
+            public synchronized void delete(Integer key) {
+                if (locked.contains(key)) {
+                    locked.delete(key);
+                }
+            }
+        }, threads, seconds, readPercent);
+
+        double lockFreeOps = run(new Target() {
+            @Override
+            public void set(Integer key, Integer value) {
+                lockFree.set(key, value);
+            }
+
+            @Override
+            public void get(Integer key) {
+                lockFree.contains(key);
+            }
+
+            @Override
+            public void delete(Integer key) {
+                try {
+                    lockFree.delete(key);
+                } catch (NoSuchElementException e) {
+                    // already gone
+                }
+            }
+        }, threads, seconds, readPercent);
+
+        System.out.printf("%d threads, %d%% reads%n", threads, readPercent);
+        System.out.printf("global lock: %,.0f ops/s%n", lockedOps);
+        System.out.printf("lock-free:   %,.0f ops/s (%.2fx)%n", lockFreeOps,
+                lockFreeOps / lockedOps);
+    }
+
+    /**
+     * Runs a mixed workload against one map.
+     *
+     * @param target map under test
+     * @param threads number of worker threads
+     * @param seconds how long to run
+     * @param readPercent share of operations that are reads
+     * @return operations per second across all threads
+     * @throws InterruptedException if interrupted while waiting on workers
+     */
+    private static double run(Target target, int threads, int seconds,
+            int readPercent) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < end) {
+                    Integer key = random.nextInt(KEYS);
+                    int roll = random.nextInt(100);
+                    if (roll < readPercent) {
+                        target.get(key);
+                    } else if (roll % 2 == 0) {
+                        target.set(key, roll);
+                    } else {
+                        target.delete(key);
+                    }
+                    count++;
+                }
+                ops.add(count);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (double) seconds;
+    }
+}
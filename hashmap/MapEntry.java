@@ -1,3 +1,5 @@
+import java.util.Objects;
+
 /**
  * A class representing a MapEntry for a HashMap.
  *
@@ -8,6 +10,7 @@ public class MapEntry<K, V> {
     private boolean removed;
     private K key;
     private V value;
+    private int hash;
 
     /**
      * Create a MapEntry object with the given key and value.
@@ -16,8 +19,21 @@ public class MapEntry<K, V> {
      * @param v value for this entry
      */
     public MapEntry(K k, V v) {
+        this(k, v, k == null ? 0 : k.hashCode());
+    }
+
+    /**
+     * Create a MapEntry object with the given key, value and the already
+     * computed hash code of the key.
+     *
+     * @param k key for this entry
+     * @param v value for this entry
+     * @param hash {@code k.hashCode()}
+     */
+    public MapEntry(K k, V v, int hash) {
         key = k;
         value = v;
+        this.hash = hash;
     }
 
     /**
@@ -54,7 +70,28 @@ public class MapEntry<K, V> {
      * @param key key to store in this entry.
      */
     public void setKey(K key) {
+        setKey(key, key == null ? 0 : key.hashCode());
+    }
+
+    /**
+     * Sets the key held by this entry along with its already computed hash
+     * code.
+     *
+     * @param key key to store in this entry.
+     * @param hash {@code key.hashCode()}
+     */
+    public void setKey(K key, int hash) {
         this.key = key;
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the cached hash code of the key held by this entry.
+     *
+     * @return hash code of the key in this entry.
+     */
+    public int getHash() {
+        return hash;
     }
 
     /**
@@ -82,7 +119,8 @@ public class MapEntry<K, V> {
             return false;
         } else {
             MapEntry<K, V> that = (MapEntry<K, V>) o;
-            return that.getKey().equals(key) && that.getValue().equals(value)
+            return Objects.equals(that.getKey(), key)
+                    && Objects.equals(that.getValue(), value)
                     && (that.isRemoved() == removed);
         }
     }
@@ -90,6 +128,6 @@ public class MapEntry<K, V> {
     @Override
     public String toString() {
         return String.format("%s%s: %s", removed ? "(Removed) " : "",
-                key.toString(), value.toString());
+                key, value);
     }
 }
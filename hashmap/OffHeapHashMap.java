@@ -0,0 +1,620 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A linear probing hash map that keeps its table outside the Java heap,
+ * either in direct buffers or in a memory-mapped file, so large tables cost
+ * the garbage collector nothing.
+ *
+ * Keys and values are stored as fixed-width bytes produced by a
+ * {@code Codec}. Each slot holds a state byte (empty, full or removed), the
+ * key's hash, the encoded key and the encoded value. Probing, removed slot
+ * reuse and regrow follow {@code HashMap} in power-of-two mode. The hash is
+ * taken over the encoded key bytes rather than {@code hashCode()}, so a
+ * file-backed table can be reopened by another JVM.
+ *
+ * The table is split into chunks of at most 2GB each, so capacity is only
+ * limited by {@code MAX_CAPACITY} slots and the space available.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class OffHeapHashMap<K, V> {
+
+    /**
+     * Largest number of slots a table can have.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    // Layout of a slot: state byte, hash, key bytes, value bytes.
+    private static final int STATE = 0;
+    private static final int HASH = 1;
+    private static final int KEY = HASH + Integer.BYTES;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int keyWidth;
+    private final int slotWidth;
+    private final Path file;
+    // Encoded form of the key currently being looked up or added.
+    private final ByteBuffer probe;
+
+    private ByteBuffer[] chunks;
+    private int chunkShift;
+    private int capacity;
+    private int size;
+    private int removed;
+
+    /**
+     * Create an off-heap map with no entries and room for at least
+     * {@code HashMap.STARTING_SIZE} slots, backed by direct buffers.
+     *
+     * @param keyCodec codec for keys, which must be canonical
+     * @param valueCodec codec for values
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create an off-heap map with no entries, backed by direct buffers.
+     *
+     * @param keyCodec codec for keys, which must be canonical
+     * @param valueCodec codec for values
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec,
+            int initialCapacity) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keyWidth = keyCodec.width();
+        this.slotWidth = KEY + keyWidth + valueCodec.width();
+        this.file = null;
+        this.probe = ByteBuffer.allocate(keyWidth);
+        install(allocate(capacityFor(initialCapacity)),
+                capacityFor(initialCapacity));
+    }
+
+    /**
+     * Create an off-heap map backed by a memory-mapped file. If the file
+     * already holds a table written with the same codecs, it is opened as
+     * is, without rehashing, and {@code initialCapacity} is ignored.
+     * Otherwise the file is created or replaced with an empty table.
+     *
+     * Resizes build the new table in a sibling file ending in
+     * {@code .tmp} and then move it over {@code file}, so the file always
+     * holds a complete table. Changes reach the disk when the operating
+     * system writes them back, or when {@code flush()} is called.
+     *
+     * @param keyCodec codec for keys, which must be canonical
+     * @param valueCodec codec for values
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     * @param file file holding the table
+     * @throws IOException if the file can't be read or written
+     * @throws IllegalArgumentException if the file is not a table with
+     * slots of the width the codecs need
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec,
+            int initialCapacity, Path file) throws IOException {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keyWidth = keyCodec.width();
+        this.slotWidth = KEY + keyWidth + valueCodec.width();
+        this.file = file;
+        this.probe = ByteBuffer.allocate(keyWidth);
+        if (Files.exists(file) && Files.size(file) > 0) {
+            open();
+        } else {
+            try {
+                install(allocate(capacityFor(initialCapacity)),
+                        capacityFor(initialCapacity));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Rounds a requested length up to a power of two.
+     *
+     * @param length requested length
+     * @return capacity of the table
+     */
+    private static int capacityFor(int length) {
+        if (length > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Cannot have more than "
+                    + MAX_CAPACITY + " slots.");
+        }
+        return length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Gets log2 of the number of slots per chunk for a table, keeping every
+     * chunk under 2GB.
+     *
+     * @param length capacity of the table
+     * @return log2 of the slots per chunk
+     */
+    private int shiftFor(int length) {
+        int perChunk = Math.min(length,
+                Integer.highestOneBit(Integer.MAX_VALUE / slotWidth));
+        return Integer.numberOfTrailingZeros(perChunk);
+    }
+
+    /**
+     * Allocates the chunks of an empty table. For a file-backed map they
+     * are mapped from the temporary file, which {@code install} moves into
+     * place.
+     *
+     * @param length capacity of the table, a power of two
+     * @return the zeroed chunks
+     */
+    private ByteBuffer[] allocate(int length) {
+        int shift = shiftFor(length);
+        int chunkBytes = (1 << shift) * slotWidth;
+        ByteBuffer[] res = new ByteBuffer[length >>> shift];
+        if (file == null) {
+            for (int c = 0; c < res.length; c++) {
+                res[c] = ByteBuffer.allocateDirect(chunkBytes);
+            }
+            return res;
+        }
+        // Growing a file by mapping past its end fills it with zeros, which
+        // is an empty slot.
+        try (FileChannel channel = FileChannel.open(tempFile(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int c = 0; c < res.length; c++) {
+                res[c] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) c * chunkBytes, chunkBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return res;
+    }
+
+    /**
+     * Makes freshly allocated chunks the table of this map.
+     *
+     * @param newChunks chunks from {@code allocate}
+     * @param length capacity of the table
+     */
+    private void install(ByteBuffer[] newChunks, int length) {
+        if (file != null) {
+            try {
+                Files.move(tempFile(), file,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        chunks = newChunks;
+        chunkShift = shiftFor(length);
+        capacity = length;
+    }
+
+    /**
+     * Gets the file new tables are built in before they replace
+     * {@code file}.
+     *
+     * @return path of the temporary file
+     */
+    private Path tempFile() {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Maps an existing table from {@code file} and counts its entries.
+     *
+     * @throws IOException if the file can't be mapped
+     */
+    private void open() throws IOException {
+        long bytes = Files.size(file);
+        long slots = bytes / slotWidth;
+        if (bytes % slotWidth != 0 || slots > MAX_CAPACITY
+                || Long.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("File is not a table with "
+                    + slotWidth + " byte slots.");
+        }
+        int length = (int) slots;
+        int shift = shiftFor(length);
+        int chunkBytes = (1 << shift) * slotWidth;
+        ByteBuffer[] res = new ByteBuffer[length >>> shift];
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int c = 0; c < res.length; c++) {
+                res[c] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) c * chunkBytes, chunkBytes);
+            }
+        }
+        chunks = res;
+        chunkShift = shift;
+        capacity = length;
+        for (int i = 0; i < capacity; i++) {
+            byte state = chunkOf(i).get(offsetOf(i) + STATE);
+            if (state == FULL) {
+                size++;
+            } else if (state == REMOVED) {
+                removed++;
+            } else if (state != EMPTY) {
+                throw new IllegalArgumentException("File is not a table with "
+                        + slotWidth + " byte slots.");
+            }
+        }
+    }
+
+    /**
+     * Gets the chunk holding a slot.
+     *
+     * @param index index of the slot
+     * @return chunk the slot is in
+     */
+    private ByteBuffer chunkOf(int index) {
+        return chunks[index >>> chunkShift];
+    }
+
+    /**
+     * Gets the byte offset of a slot within its chunk.
+     *
+     * @param index index of the slot
+     * @return offset of the slot's state byte
+     */
+    private int offsetOf(int index) {
+        return (index & ((1 << chunkShift) - 1)) * slotWidth;
+    }
+
+    /**
+     * Encodes a key into {@code probe} and hashes the encoded bytes.
+     *
+     * @param key key to encode
+     * @return hash of the encoded key
+     */
+    private int encode(K key) {
+        keyCodec.write(key, probe, 0);
+        int h = 1;
+        for (int i = 0; i < keyWidth; i++) {
+            h = 31 * h + probe.get(i);
+        }
+        return h;
+    }
+
+    /**
+     * Checks whether the key stored in a slot is the one in {@code probe}.
+     *
+     * @param chunk chunk holding the slot
+     * @param offset offset of the slot
+     * @param hash hash of the key in {@code probe}
+     * @return true if the slot holds that key
+     */
+    private boolean matches(ByteBuffer chunk, int offset, int hash) {
+        if (chunk.getInt(offset + HASH) != hash) {
+            return false;
+        }
+        for (int i = 0; i < keyWidth; i++) {
+            if (chunk.get(offset + KEY + i) != probe.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     * @throws IllegalArgumentException if the key or value is null or does
+     * not fit its codec
+     * @throws UncheckedIOException if a file-backed table can't regrow
+     */
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+
+        int hash = encode(key);
+        if (((size + 1) / (double) capacity) > HashMap.MAX_LOAD_FACTOR) {
+            resizeBackingTable(2 * capacity);
+        } else if (((size + removed + 1) / (double) capacity)
+                > HashMap.MAX_OCCUPIED_FACTOR) {
+            resizeBackingTable(capacity);
+        }
+
+        int mask = capacity - 1;
+        int index = HashMap.spread(hash) & mask;
+        int firstRemoved = -1;
+        for (int probes = 0; probes <= mask; probes++) {
+            ByteBuffer chunk = chunkOf(index);
+            int offset = offsetOf(index);
+            byte state = chunk.get(offset + STATE);
+            if (state == EMPTY) {
+                break;
+            }
+            if (matches(chunk, offset, hash)) {
+                if (state == FULL) {
+                    V oldValue = valueAt(chunk, offset);
+                    valueCodec.write(value, chunk, offset + KEY + keyWidth);
+                    return oldValue;
+                }
+                // A removed copy of the key means it can't be further along.
+                if (firstRemoved == -1) {
+                    firstRemoved = index;
+                }
+                break;
+            }
+            if (state == REMOVED && firstRemoved == -1) {
+                firstRemoved = index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        boolean reused = firstRemoved != -1;
+        if (reused) {
+            index = firstRemoved;
+        } else if (chunkOf(index).get(offsetOf(index) + STATE) != EMPTY) {
+            throw new IllegalStateException("Backing table is full.");
+        }
+        ByteBuffer chunk = chunkOf(index);
+        int offset = offsetOf(index);
+        // The state is written last so a value that doesn't fit its codec
+        // leaves the slot as it was.
+        valueCodec.write(value, chunk, offset + KEY + keyWidth);
+        for (int i = 0; i < keyWidth; i++) {
+            chunk.put(offset + KEY + i, probe.get(i));
+        }
+        chunk.putInt(offset + HASH, hash);
+        chunk.put(offset + STATE, FULL);
+        if (reused) {
+            removed--;
+        }
+        size++;
+        return null;
+    }
+
+    /**
+     * Decodes the value stored in a slot.
+     *
+     * @param chunk chunk holding the slot
+     * @param offset offset of the slot
+     * @return the value
+     */
+    private V valueAt(ByteBuffer chunk, int offset) {
+        return valueCodec.read(chunk, offset + KEY + keyWidth);
+    }
+
+    /**
+     * Finds the slot holding a live copy of {@code key}.
+     *
+     * @param key key to look for
+     * @return index of the slot, or -1 if the key is not in the map
+     */
+    private int indexOf(K key) {
+        int hash = encode(key);
+        int mask = capacity - 1;
+        int index = HashMap.spread(hash) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            ByteBuffer chunk = chunkOf(index);
+            int offset = offsetOf(index);
+            byte state = chunk.get(offset + STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (matches(chunk, offset, hash)) {
+                return state == FULL ? index : -1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        ByteBuffer chunk = chunkOf(index);
+        int offset = offsetOf(index);
+        chunk.put(offset + STATE, REMOVED);
+        size--;
+        removed++;
+        return valueAt(chunk, offset);
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        int index = indexOf(key);
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return valueAt(chunkOf(index), offsetOf(index));
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Clears the map and resets the table to {@code HashMap.STARTING_SIZE}
+     * slots, rounded up to a power of two.
+     */
+    public void clear() {
+        int length = capacityFor(HashMap.STARTING_SIZE);
+        install(allocate(length), length);
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     *
+     * @return capacity of the table
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the set of keys in the map, decoded onto the heap.
+     *
+     * @return set of keys in the map
+     */
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        for (int i = 0; i < capacity; i++) {
+            ByteBuffer chunk = chunkOf(i);
+            int offset = offsetOf(i);
+            if (chunk.get(offset + STATE) == FULL) {
+                res.add(keyCodec.read(chunk, offset + KEY));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the list of values in the map in slot order, decoded onto the
+     * heap.
+     *
+     * @return list of values in the map
+     */
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        for (int i = 0; i < capacity; i++) {
+            ByteBuffer chunk = chunkOf(i);
+            int offset = offsetOf(i);
+            if (chunk.get(offset + STATE) == FULL) {
+                res.add(valueAt(chunk, offset));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resizes the table to {@code length} slots, rounded up to a power of
+     * two. Live slots are copied by their stored hash without decoding the
+     * key. Removed slots are dropped.
+     *
+     * @param length requested number of slots
+     * @throws UncheckedIOException if a file-backed table can't be written
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        ByteBuffer[] oldChunks = chunks;
+        int oldShift = chunkShift;
+        int oldCapacity = capacity;
+        int newCapacity = capacityFor(length);
+        ByteBuffer[] newChunks = allocate(newCapacity);
+        int newShift = shiftFor(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            ByteBuffer src = oldChunks[i >>> oldShift];
+            int srcOffset = (i & ((1 << oldShift) - 1)) * slotWidth;
+            if (src.get(srcOffset + STATE) != FULL) {
+                continue;
+            }
+            int index = HashMap.spread(src.getInt(srcOffset + HASH)) & mask;
+            ByteBuffer dst = newChunks[index >>> newShift];
+            int dstOffset = (index & ((1 << newShift) - 1)) * slotWidth;
+            while (dst.get(dstOffset + STATE) != EMPTY) {
+                index = (index + 1) & mask;
+                dst = newChunks[index >>> newShift];
+                dstOffset = (index & ((1 << newShift) - 1)) * slotWidth;
+            }
+            for (int b = 0; b < slotWidth; b++) {
+                dst.put(dstOffset + b, src.get(srcOffset + b));
+            }
+        }
+        install(newChunks, newCapacity);
+        removed = 0;
+    }
+
+    /**
+     * Writes any changes to a file-backed table out to the file. Does
+     * nothing for a map backed by direct buffers.
+     */
+    public void flush() {
+        if (file != null) {
+            for (ByteBuffer chunk : chunks) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    /**
+     * Gets the current load factor of the map.
+     *
+     * @return size divided by the number of slots
+     */
+    public float load() {
+        return ((float) size) / capacity;
+    }
+}
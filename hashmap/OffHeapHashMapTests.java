@@ -0,0 +1,135 @@
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runners.MethodSorters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * OffHeapHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class OffHeapHashMapTests {
+
+    private static final int TIMEOUT = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = TIMEOUT)
+    public void test01AddRemove() {
+        OffHeapHashMap<String, Integer> map =
+                new OffHeapHashMap<>(Codec.utf8(16), Codec.INT);
+        assertNull(map.set("a", 1));
+        assertNull(map.set("b", 2));
+        assertEquals((Integer) 1, map.set("a", 3));
+        assertEquals(2, map.size());
+
+        assertEquals((Integer) 3, map.delete("a"));
+        assertFalse(map.contains("a"));
+        assertNull(map.set("a", 4));
+        assertEquals((Integer) 4, map.get("a"));
+        assertEquals((Integer) 2, map.get("b"));
+        assertEquals(2, map.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test02GetNonexistent() {
+        OffHeapHashMap<Long, Long> map =
+                new OffHeapHashMap<>(Codec.LONG, Codec.LONG);
+        map.set(1L, 2L);
+        map.get(2L);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03ValueTooWide() {
+        OffHeapHashMap<Integer, String> map =
+                new OffHeapHashMap<>(Codec.INT, Codec.utf8(4));
+        map.set(1, "abcd");
+        try {
+            map.set(1, "abcde");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            map.set(2, "abcde");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("abcd", map.get(1));
+        assertFalse(map.contains(2));
+        assertEquals(1, map.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04RandomOperations() {
+        OffHeapHashMap<Integer, String> map =
+                new OffHeapHashMap<>(Codec.INT, Codec.utf8(8), 1);
+        java.util.HashMap<Integer, String> expected = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), map.contains(key));
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), map.delete(key));
+                }
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.set(key, "v" + i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.keySet(), map.keySet());
+        assertEquals(expected.size(), map.values().size());
+        assertTrue(map.load() <= HashMap.MAX_LOAD_FACTOR);
+    }
+
+    @Test(timeout = 2000)
+    public void test05FileBackedReopen() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table");
+        OffHeapHashMap<Integer, Long> map =
+                new OffHeapHashMap<>(Codec.INT, Codec.LONG, 4, file);
+        for (int i = 0; i < 1000; i++) {
+            map.set(i, i * 10L);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            map.delete(i);
+        }
+        map.flush();
+        assertEquals(map.capacity() * 17L, Files.size(file));
+        assertFalse(Files.exists(file.resolveSibling("table.tmp")));
+
+        OffHeapHashMap<Integer, Long> reopened =
+                new OffHeapHashMap<>(Codec.INT, Codec.LONG, 4, file);
+        assertEquals(map.capacity(), reopened.capacity());
+        assertEquals(666, reopened.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 != 0, reopened.contains(i));
+        }
+        assertEquals((Long) 10L, reopened.get(1));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void test06ReopenWithWrongCodecs() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table");
+        new OffHeapHashMap<>(Codec.INT, Codec.LONG, 16, file).set(1, 2L);
+        new OffHeapHashMap<>(Codec.INT, Codec.INT, 16, file);
+    }
+}
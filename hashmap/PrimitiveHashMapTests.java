@@ -0,0 +1,134 @@
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for IntIntHashMap, IntObjectHashMap, LongLongHashMap and
+ * LongObjectHashMap.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PrimitiveHashMapTests {
+
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void test01IntIntAddRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        assertEquals(0, map.set(0, 10));
+        assertEquals(0, map.set(-1, 20));
+        assertEquals(10, map.set(0, 30));
+        assertEquals(2, map.size());
+        assertTrue(map.contains(0));
+
+        assertEquals(30, map.delete(0));
+        assertFalse(map.contains(0));
+        assertEquals(-5, map.getOrDefault(0, -5));
+        assertEquals(20, map.get(-1));
+        assertEquals(1, map.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test02IntIntGetNonexistent() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.set(3, 4);
+        map.get(4);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03IntIntRandomOperations() {
+        IntIntHashMap map = new IntIntHashMap(1);
+        java.util.HashMap<Integer, Integer> expected = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            // Multiples of 1024 collide in the low bits without the spreader.
+            int key = random.nextInt(1000) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), map.contains(key));
+                if (expected.containsKey(key)) {
+                    assertEquals((int) expected.remove(key), map.delete(key));
+                }
+            } else {
+                Integer old = expected.put(key, i);
+                assertEquals(old == null ? 0 : old, map.set(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToInt(k -> k)
+                .sorted().toArray(), keys);
+        assertEquals(expected.size(), map.values().length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04IntObject() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.set(7, "a"));
+        assertEquals("a", map.set(7, "b"));
+        assertEquals("b", map.delete(7));
+        assertNull(map.getOrDefault(7, null));
+        assertNull(map.set(7, "c"));
+        assertEquals(1, map.values().size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void test05IntObjectNullValue() {
+        new IntObjectHashMap<String>().set(1, null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06LongLong() {
+        LongLongHashMap map = new LongLongHashMap();
+        long big = 1L << 40;
+        map.set(big, 1);
+        map.set(big + 1, 2);
+        map.set(1, 3);
+        assertEquals(1, map.get(big));
+        assertEquals(2, map.get(big + 1));
+        assertEquals(3, map.get(1));
+        assertFalse(map.contains(0));
+
+        map.resizeBackingTable(64);
+        assertEquals(3, map.size());
+        assertEquals(2, map.delete(big + 1));
+        assertEquals(2, map.keys().length);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test07LongObjectRandomOperations() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        java.util.HashMap<Long, String> expected = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 20000; i++) {
+            // Keys that only differ in the high word.
+            long key = ((long) random.nextInt(1000)) << 32;
+            if (random.nextInt(3) == 0) {
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), map.delete(key));
+                }
+                assertFalse(map.contains(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.set(key, "v" + i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key : map.keys()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,332 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map using Robin Hood linear probing. Each slot remembers how far its
+ * entry sits from its home slot, and an insert takes the slot of any entry
+ * that is closer to home than the one being inserted. That keeps probe
+ * lengths even, lets lookups stop as soon as they pass an entry closer to
+ * home than the key would be, and allows much higher load factors than plain
+ * linear probing.
+ *
+ * Deletion shifts the following entries back instead of leaving removed
+ * entries behind, so {@code getTable()} never contains removed entries.
+ * Capacities are powers of two.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class RobinHoodHashMap<K, V> {
+
+    public static final double DEFAULT_LOAD_FACTOR = 0.9;
+
+    private MapEntry<K, V>[] table;
+    private int[] distances;
+    private int size;
+    private final double maxLoadFactor;
+
+    /**
+     * Create a Robin Hood hash map with no entries, a backing array of at
+     * least {@code HashMap.STARTING_SIZE} and {@code DEFAULT_LOAD_FACTOR}.
+     */
+    public RobinHoodHashMap() {
+        this(HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create a Robin Hood hash map with no entries and
+     * {@code DEFAULT_LOAD_FACTOR}.
+     *
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     */
+    public RobinHoodHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a Robin Hood hash map with no entries.
+     *
+     * @param initialCapacity initial capacity, rounded up to a power of two
+     * @param maxLoadFactor load factor above which the table regrows
+     */
+    public RobinHoodHashMap(int initialCapacity, double maxLoadFactor) {
+        if (maxLoadFactor <= 0 || maxLoadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be between "
+                    + "0 and 1.");
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        table = newTable(initialCapacity);
+        distances = new int[table.length];
+        size = 0;
+    }
+
+    /**
+     * Allocates a backing array of at least {@code length} slots.
+     *
+     * @param length requested capacity
+     * @return empty backing array with a power-of-two length
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> MapEntry<K, V>[] newTable(int length) {
+        int capacity = length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+        return (MapEntry<K, V>[]) new MapEntry[capacity];
+    }
+
+    /**
+     * Gets the home slot for a hash code.
+     *
+     * @param hashCode hash code of a key
+     * @return index of the slot the key belongs in
+     */
+    private int indexFor(int hashCode) {
+        return HashMap.spread(hashCode) & (table.length - 1);
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int index = findIndex(key, hashCode);
+        if (index != -1) {
+            V oldValue = table[index].getValue();
+            table[index].setValue(value);
+            return oldValue;
+        }
+
+        if (((size + 1) / (double) table.length) > maxLoadFactor) {
+            resizeBackingTable(2 * table.length);
+        }
+        place(new MapEntry<>(key, value, hashCode));
+        size++;
+        return null;
+    }
+
+    /**
+     * Inserts an entry whose key is known not to be in the table, displacing
+     * entries that are closer to their home slot than the one being carried.
+     *
+     * @param entry entry to insert
+     */
+    private void place(MapEntry<K, V> entry) {
+        int mask = table.length - 1;
+        int index = indexFor(entry.getHash());
+        int distance = 0;
+        while (table[index] != null) {
+            if (distances[index] < distance) {
+                MapEntry<K, V> displaced = table[index];
+                int displacedDistance = distances[index];
+                table[index] = entry;
+                distances[index] = distance;
+                entry = displaced;
+                distance = displacedDistance;
+            }
+            index = (index + 1) & mask;
+            distance++;
+        }
+        table[index] = entry;
+        distances[index] = distance;
+    }
+
+    /**
+     * Finds the slot holding {@code key}. The search stops at an empty slot
+     * or at an entry closer to its home slot than the key would be.
+     *
+     * @param key key to look for
+     * @param hashCode {@code key.hashCode()}
+     * @return index of the slot, or -1 if the key is not in the map
+     */
+    private int findIndex(K key, int hashCode) {
+        int mask = table.length - 1;
+        int index = indexFor(hashCode);
+        for (int distance = 0; table[index] != null
+                && distances[index] >= distance; distance++) {
+            if (table[index].getHash() == hashCode
+                    && table[index].getKey().equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry with the given key from the map, shifting the rest
+     * of its cluster back by one slot.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        int index = findIndex(key, key.hashCode());
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        V value = table[index].getValue();
+        int mask = table.length - 1;
+        int next = (index + 1) & mask;
+        while (table[next] != null && distances[next] > 0) {
+            table[index] = table[next];
+            distances[index] = distances[next] - 1;
+            index = next;
+            next = (next + 1) & mask;
+        }
+        table[index] = null;
+        distances[index] = 0;
+        size--;
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        int index = findIndex(key, key.hashCode());
+        if (index == -1) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return table[index].getValue();
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        return findIndex(key, key.hashCode()) != -1;
+    }
+
+    /**
+     * Clears the map and resets the backing array.
+     */
+    public void clear() {
+        table = newTable(HashMap.STARTING_SIZE);
+        distances = new int[table.length];
+        size = 0;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the set of keys in the map.
+     *
+     * @return set of keys in the map
+     */
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                res.add(entry.getKey());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets the list of values in the map, in slot order.
+     *
+     * @return list of values in the map
+     */
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                res.add(entry.getValue());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Resizes the backing array to at least {@code length} slots, reusing the
+     * cached hash codes.
+     *
+     * @param length new minimum length of the backing array
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Cannot resize backing table "
+                    + "to negative length or length less than current number "
+                    + "of elements inside the hash map.");
+        }
+        MapEntry<K, V>[] tableCopy = table;
+        table = newTable(length);
+        distances = new int[table.length];
+        for (MapEntry<K, V> entry : tableCopy) {
+            if (entry != null) {
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * Gets the backing array.
+     *
+     * @return the backing array
+     */
+    public MapEntry<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * Gets how far the entry in a slot sits from its home slot.
+     *
+     * @param index slot in the backing array
+     * @return probe distance of the entry in that slot, 0 if it is empty
+     */
+    public int probeDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Gets the current load factor of the map.
+     *
+     * @return size divided by the length of the backing array
+     */
+    public float load() {
+        return ((float) size) / table.length;
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * RobinHoodHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RobinHoodHashMapTests {
+
+    private RobinHoodHashMap<Integer, String> directory;
+    private static final int TIMEOUT = 200;
+
+    @Before
+    public void setUp() {
+        directory = new RobinHoodHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01AddGet() {
+        assertEquals(16, directory.getTable().length);
+        assertNull(directory.set(1, "a"));
+        assertNull(directory.set(2, "b"));
+        assertEquals("a", directory.set(1, "c"));
+
+        assertEquals(2, directory.size());
+        assertEquals("c", directory.get(1));
+        assertEquals("b", directory.get(2));
+        assertFalse(directory.contains(3));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02HighLoadBeforeRegrow() {
+        for (int i = 0; i < 14; i++) {
+            directory.set(i * 31, "v" + i);
+        }
+        assertEquals(16, directory.getTable().length);
+
+        directory.set(14 * 31, "v14");
+        assertEquals(32, directory.getTable().length);
+        assertInvariant();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03RemoveShiftsBack() {
+        for (int i = 0; i < 12; i++) {
+            directory.set(i, "v" + i);
+        }
+        for (int i = 0; i < 12; i += 2) {
+            assertEquals("v" + i, directory.delete(i));
+        }
+
+        assertEquals(6, directory.size());
+        for (MapEntry<Integer, String> entry : directory.getTable()) {
+            assertTrue(entry == null || !entry.isRemoved());
+        }
+        for (int i = 1; i < 12; i += 2) {
+            assertEquals("v" + i, directory.get(i));
+        }
+        assertInvariant();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test04RandomOperations() {
+        java.util.HashMap<Integer, String> expected = new java.util.HashMap<>();
+        Random random = new Random(1332);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), directory.contains(key));
+                if (expected.containsKey(key)) {
+                    assertEquals(expected.remove(key), directory.delete(key));
+                }
+            } else {
+                assertEquals(expected.put(key, "v" + i),
+                        directory.set(key, "v" + i));
+            }
+        }
+
+        assertEquals(expected.size(), directory.size());
+        assertEquals(expected.keySet(), directory.keySet());
+        assertInvariant();
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test05RemoveNonexistent() {
+        directory.set(1, "a");
+        directory.delete(17);
+    }
+
+    /**
+     * Checks that every slot's probe distance matches its home slot and
+     * that no entry is closer to home than the entry before it allows.
+     */
+    private void assertInvariant() {
+        MapEntry<Integer, String>[] table = directory.getTable();
+        int mask = table.length - 1;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) {
+                continue;
+            }
+            int home = HashMap.spread(table[i].getHash()) & mask;
+            assertEquals((i - home) & mask, directory.probeDistance(i));
+            int prev = (i - 1) & mask;
+            if (table[prev] != null) {
+                assertTrue(directory.probeDistance(i)
+                        <= directory.probeDistance(prev) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,489 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe linear probing hash map split into independently locked
+ * segments.
+ *
+ * The high bits of a key's mixed hash pick its segment and the low bits pick
+ * its home slot inside that segment's table. Writers lock only their
+ * segment. Readers never lock: slots hold immutable nodes that are
+ * published with volatile writes, so a {@code get} sees either the old or the
+ * new node for a key, never a partly written one. Removed keys are left as
+ * nodes with no value, the same way {@code HashMap} leaves removed entries.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+public class StripedHashMap<K, V> {
+
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Create a striped hash map with {@code DEFAULT_SEGMENTS} segments, each
+     * starting at {@code HashMap.STARTING_SIZE} slots.
+     */
+    public StripedHashMap() {
+        this(DEFAULT_SEGMENTS, HashMap.STARTING_SIZE);
+    }
+
+    /**
+     * Create a striped hash map with no entries.
+     *
+     * @param segmentCount number of segments, rounded up to a power of two
+     * @param segmentCapacity initial capacity of each segment, rounded up to
+     * a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public StripedHashMap(int segmentCount, int segmentCapacity) {
+        if (segmentCount <= 0 || segmentCapacity <= 0) {
+            throw new IllegalArgumentException("Segment count and capacity "
+                    + "must be positive.");
+        }
+        int count = powerOfTwo(segmentCount);
+        segments = (Segment<K, V>[]) new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(powerOfTwo(segmentCapacity));
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Rounds a positive number up to a power of two.
+     *
+     * @param n number to round
+     * @return smallest power of two no smaller than {@code n}
+     */
+    private static int powerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Gets the segment responsible for a mixed hash.
+     *
+     * @param spread mixed hash code of a key
+     * @return the segment holding that key
+     */
+    private Segment<K, V> segmentFor(int spread) {
+        // A shift of 32 is a no-op in Java, so a single segment is special.
+        return segments.length == 1 ? segments[0]
+                : segments[spread >>> segmentShift];
+    }
+
+    /**
+     * Adds a key, value pair to the map, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V set(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Cannot add null key or value "
+                    + "to hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int spread = HashMap.spread(hashCode);
+        V oldValue = segmentFor(spread).set(key, value, hashCode, spread);
+        if (oldValue == null) {
+            size.increment();
+        }
+        return oldValue;
+    }
+
+    /**
+     * Removes the entry with the given key from the map.
+     *
+     * @param key key of the entry to remove
+     * @return the value associated with the removed key
+     */
+    public V delete(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key from "
+                    + "hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int spread = HashMap.spread(hashCode);
+        V value = segmentFor(spread).delete(key, hashCode, spread);
+        if (value == null) {
+            throw new NoSuchElementException("Attempted to remove key that "
+                    + "was not contained within the hash map.");
+        }
+        size.decrement();
+        return value;
+    }
+
+    /**
+     * Gets the value associated with the given key without locking.
+     *
+     * @param key key to look up
+     * @return the value associated with the key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key from "
+                    + "hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int spread = HashMap.spread(hashCode);
+        V value = segmentFor(spread).get(key, hashCode, spread);
+        if (value == null) {
+            throw new NoSuchElementException("Attempted to get key that "
+                    + "was not contained within the hash map.");
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether or not the key is in the map, without locking.
+     *
+     * @param key key to look for
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot check if null key is "
+                    + "in hash map.");
+        }
+
+        int hashCode = key.hashCode();
+        int spread = HashMap.spread(hashCode);
+        return segmentFor(spread).get(key, hashCode, spread) != null;
+    }
+
+    /**
+     * Removes every entry, one segment at a time.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            size.add(-segment.clear());
+        }
+    }
+
+    /**
+     * Gets the number of entries in the map. The count is exact when no
+     * writes are in progress.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Gets the number of entries in each segment, locking them one at a
+     * time.
+     *
+     * @return live entries per segment, in segment order
+     */
+    int[] segmentSizes() {
+        int[] sizes = new int[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            Segment<K, V> segment = segments[i];
+            segment.lock.lock();
+            try {
+                sizes[i] = segment.live;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Gets a copy of the keys in the map. Entries written while the copy is
+     * being made may or may not be included.
+     *
+     * @return set of keys in the map
+     */
+    public Set<K> keySet() {
+        Set<K> res = new HashSet<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> slots = segment.slots;
+            for (int i = 0; i < slots.length(); i++) {
+                Node<K, V> node = slots.get(i);
+                if (node != null && node.value != null) {
+                    res.add(node.key);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Gets a copy of the values in the map. Entries written while the copy
+     * is being made may or may not be included.
+     *
+     * @return list of values in the map
+     */
+    public List<V> values() {
+        List<V> res = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> slots = segment.slots;
+            for (int i = 0; i < slots.length(); i++) {
+                Node<K, V> node = slots.get(i);
+                if (node != null && node.value != null) {
+                    res.add(node.value);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * An immutable slot in a segment. A node with a null value marks a
+     * removed key.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final int hash;
+
+        /**
+         * Create a node.
+         *
+         * @param key key held by the node
+         * @param value value held by the node, null if the key was removed
+         * @param hash {@code key.hashCode()}
+         */
+        private Node(K key, V value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * One independently locked linear probing table.
+     */
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile AtomicReferenceArray<Node<K, V>> slots;
+        // Only touched while holding the lock.
+        private int live;
+        private int removed;
+
+        /**
+         * Create an empty segment.
+         *
+         * @param capacity power-of-two number of slots
+         */
+        private Segment(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Looks up a key without locking. If a rehash published a new table
+         * during the probe the lookup is retried, so a reader never returns
+         * a value that was already replaced in the newer table.
+         *
+         * @param key key to look for
+         * @param hashCode {@code key.hashCode()}
+         * @param spread mixed hash code of the key
+         * @return the value, or null if the key is not in the segment
+         */
+        private V get(Object key, int hashCode, int spread) {
+            while (true) {
+                AtomicReferenceArray<Node<K, V>> table = slots;
+                V value = probe(table, key, hashCode, spread);
+                if (table == slots) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Probes one table for a key.
+         *
+         * @param table backing slots to search
+         * @param key key to look for
+         * @param hashCode {@code key.hashCode()}
+         * @param spread mixed hash code of the key
+         * @return the value, or null if the key is not in the table
+         */
+        private V probe(AtomicReferenceArray<Node<K, V>> table, Object key,
+                int hashCode, int spread) {
+            int mask = table.length() - 1;
+            int index = spread & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Node<K, V> node = table.get(index);
+                if (node == null) {
+                    return null;
+                }
+                if (node.hash == hashCode && node.key.equals(key)) {
+                    return node.value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Finds the slot for a key while holding the lock: the key's own
+         * node if present, otherwise the first removed or empty slot.
+         *
+         * @param table backing slots of this segment
+         * @param key key to look for
+         * @param hashCode {@code key.hashCode()}
+         * @param spread mixed hash code of the key
+         * @return index of the slot to write
+         */
+        private int slotFor(AtomicReferenceArray<Node<K, V>> table, K key,
+                int hashCode, int spread) {
+            int mask = table.length() - 1;
+            int index = spread & mask;
+            int firstRemoved = -1;
+            for (int probes = 0; probes <= mask; probes++) {
+                Node<K, V> node = table.get(index);
+                if (node == null) {
+                    return firstRemoved == -1 ? index : firstRemoved;
+                }
+                if (node.hash == hashCode && node.key.equals(key)) {
+                    return node.value == null && firstRemoved != -1
+                            ? firstRemoved : index;
+                }
+                if (node.value == null && firstRemoved == -1) {
+                    firstRemoved = index;
+                }
+                index = (index + 1) & mask;
+            }
+            return firstRemoved;
+        }
+
+        /**
+         * Adds or replaces a key under the segment lock.
+         *
+         * @param key key to add
+         * @param value value to add
+         * @param hashCode {@code key.hashCode()}
+         * @param spread mixed hash code of the key
+         * @return the old value, or null if the key was not in the segment
+         */
+        private V set(K key, V value, int hashCode, int spread) {
+            lock.lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> table = slots;
+                int capacity = table.length();
+                if (live + 1 > HashMap.MAX_LOAD_FACTOR * capacity) {
+                    table = rehash(2 * capacity);
+                } else if (live + removed + 1
+                        > HashMap.MAX_OCCUPIED_FACTOR * capacity) {
+                    table = rehash(capacity);
+                }
+
+                int index = slotFor(table, key, hashCode, spread);
+                Node<K, V> old = table.get(index);
+                boolean sameKey = old != null && old.hash == hashCode
+                        && old.key.equals(key);
+                table.set(index, new Node<>(key, value, hashCode));
+                if (sameKey && old.value != null) {
+                    return old.value;
+                }
+                if (old != null) {
+                    removed--;
+                }
+                live++;
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Replaces a key's node with a removed marker under the segment lock.
+         *
+         * @param key key to remove
+         * @param hashCode {@code key.hashCode()}
+         * @param spread mixed hash code of the key
+         * @return the removed value, or null if the key was not in the
+         * segment
+         */
+        private V delete(K key, int hashCode, int spread) {
+            lock.lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> table = slots;
+                int mask = table.length() - 1;
+                int index = spread & mask;
+                for (int probes = 0; probes <= mask; probes++) {
+                    Node<K, V> node = table.get(index);
+                    if (node == null) {
+                        return null;
+                    }
+                    if (node.hash == hashCode && node.key.equals(key)) {
+                        if (node.value != null) {
+                            table.set(index, new Node<>(key, null, hashCode));
+                            live--;
+                            removed++;
+                        }
+                        return node.value;
+                    }
+                    index = (index + 1) & mask;
+                }
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Copies the live nodes into a new table and publishes it. Readers
+         * still holding the old table keep seeing a consistent copy of it.
+         * Must be called while holding the lock.
+         *
+         * @param capacity power-of-two number of slots for the new table
+         * @return the new table
+         */
+        private AtomicReferenceArray<Node<K, V>> rehash(int capacity) {
+            AtomicReferenceArray<Node<K, V>> old = slots;
+            AtomicReferenceArray<Node<K, V>> table =
+                    new AtomicReferenceArray<>(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.length(); i++) {
+                Node<K, V> node = old.get(i);
+                if (node != null && node.value != null) {
+                    int index = HashMap.spread(node.hash) & mask;
+                    while (table.get(index) != null) {
+                        index = (index + 1) & mask;
+                    }
+                    table.set(index, node);
+                }
+            }
+            removed = 0;
+            slots = table;
+            return table;
+        }
+
+        /**
+         * Empties the segment, keeping its current capacity.
+         *
+         * @return number of live entries that were dropped
+         */
+        private int clear() {
+            lock.lock();
+            try {
+                int dropped = live;
+                slots = new AtomicReferenceArray<>(slots.length());
+                live = 0;
+                removed = 0;
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * StripedHashMap Tests
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class StripedHashMapTests {
+
+    private StripedHashMap<Integer, String> directory;
+    private static final int TIMEOUT = 200;
+    private static final int STRESS_TIMEOUT = 10000;
+    private static final int THREADS = 8;
+
+    @Before
+    public void setUp() {
+        directory = new StripedHashMap<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01SegmentRouting() {
+        // 3 segments round up to 4, picked by the top two bits of the
+        // mixed hash.
+        StripedHashMap<Integer, String> map = new StripedHashMap<>(3, 2);
+        int[] expected = new int[4];
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.set(i, "v" + i));
+            expected[HashMap.spread(Integer.hashCode(i)) >>> 30]++;
+        }
+        assertArrayEquals(expected, map.segmentSizes());
+        for (int count : expected) {
+            assertTrue(count > 0);
+        }
+
+        for (int i = 0; i < 1000; i += 3) {
+            assertEquals("v" + i, map.delete(i));
+            expected[HashMap.spread(Integer.hashCode(i)) >>> 30]--;
+        }
+        assertEquals("v1", map.set(1, "w1"));
+        assertArrayEquals(expected, map.segmentSizes());
+        assertEquals(666, map.size());
+
+        map.clear();
+        assertArrayEquals(new int[4], map.segmentSizes());
+        assertEquals(0, map.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void test02RemoveTwice() {
+        directory.set(8, "a");
+        directory.delete(8);
+        directory.delete(8);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03SingleSegment() {
+        StripedHashMap<Integer, String> map = new StripedHashMap<>(1, 1);
+        for (int i = 0; i < 100; i++) {
+            map.set(i, "v" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, map.get(i));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.contains(1));
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test04ConcurrentDisjointAdds() throws Throwable {
+        ThreadHarness.runThreads(THREADS, id -> {
+            for (int i = 0; i < 20000; i++) {
+                int key = i * THREADS + id;
+                assertNull(directory.set(key, "v" + key));
+                assertEquals("v" + key, directory.get(key));
+            }
+        });
+
+        assertEquals(20000 * THREADS, directory.size());
+        assertEquals(20000 * THREADS, directory.keySet().size());
+        for (int key = 0; key < 20000 * THREADS; key++) {
+            assertEquals("v" + key, directory.get(key));
+        }
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test05ConcurrentChurn() throws Throwable {
+        // Each thread adds, overwrites and removes its own keys while every
+        // thread reads all of them, mirroring test21-23 in HashMapTests.
+        ThreadHarness.runThreads(THREADS, id -> {
+            for (int round = 0; round < 2000; round++) {
+                for (int i = 0; i < 16; i++) {
+                    int key = i * THREADS + id;
+                    directory.set(key, "a" + round);
+                    assertEquals("a" + round, directory.set(key, "b" + round));
+                    if ((i + round) % 3 == 0) {
+                        assertEquals("b" + round, directory.delete(key));
+                        assertFalse(directory.contains(key));
+                    }
+                }
+                int other = (round % 16) * THREADS + (round % THREADS);
+                if (directory.contains(other)) {
+                    assertTrue(directory.values().size() > 0);
+                }
+            }
+        });
+
+        int live = 0;
+        for (int id = 0; id < THREADS; id++) {
+            for (int i = 0; i < 16; i++) {
+                if ((i + 1999) % 3 != 0) {
+                    assertEquals("b1999", directory.get(i * THREADS + id));
+                    live++;
+                }
+            }
+        }
+        assertEquals(live, directory.size());
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void test06ReadersNeverSeeMissingKey() throws Throwable {
+        for (int i = 0; i < 1000; i++) {
+            directory.set(i, "v" + i);
+        }
+        // Thread 0 keeps growing the map while the others read keys that
+        // were added before it started.
+        ThreadHarness.runThreads(THREADS, id -> {
+            if (id == 0) {
+                for (int i = 1000; i < 100000; i++) {
+                    directory.set(i, "v" + i);
+                }
+            } else {
+                for (int round = 0; round < 50; round++) {
+                    for (int i = 0; i < 1000; i++) {
+                        assertEquals("v" + i, directory.get(i));
+                    }
+                }
+            }
+        });
+
+        assertEquals(100000, directory.size());
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the threads of the concurrent map stress tests.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+final class ThreadHarness {
+
+    /**
+     * Body of a stress test thread.
+     */
+    interface Worker {
+        /**
+         * Runs one thread's share of the test.
+         *
+         * @param id index of the thread
+         */
+        void run(int id);
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private ThreadHarness() {
+    }
+
+    /**
+     * Starts the threads at the same time and rethrows the first failure
+     * any of them hit.
+     *
+     * @param count number of threads
+     * @param worker body of each thread
+     * @throws Throwable the first assertion error or exception thrown
+     */
+    static void runThreads(int count, Worker worker) throws Throwable {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < count; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
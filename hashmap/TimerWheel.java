@@ -0,0 +1,185 @@
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that holds {@code ExpiringHashMap} entries by
+ * the time they expire, so expired entries can be found without scanning
+ * the map's table.
+ *
+ * Level 0 has 64 buckets of 2^30 ns (about a second), level 1 has 64 of
+ * 2^36 ns (about a minute), level 2 has 32 of 2^42 ns (about an hour) and
+ * level 3 has 4 of 2^47 ns (about 1.6 days). Anything further out goes in
+ * the single bucket of level 4. An entry is put in the finest level that
+ * covers the time it has left, in the bucket its deadline falls in. Each
+ * bucket is a doubly linked list threaded through the entries themselves,
+ * so scheduling and unscheduling are O(1) and allocate nothing.
+ *
+ * Advancing the wheel empties every bucket that time has moved past. Its
+ * entries are either expired or, if they aren't due yet, moved down to a
+ * finer level. The work is the number of buckets passed, at most the size
+ * of the wheel, plus the entries in them, which are all due or close to
+ * due, never the size of the map.
+ *
+ * @author John Pratt
+ * @version 1.0
+ */
+class TimerWheel<K, V> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    // log2 of the nanoseconds one bucket covers, per level. Each level
+    // covers exactly one bucket of the next.
+    private static final int[] SHIFTS = {30, 36, 42, 47, 49};
+
+    /**
+     * An entry of {@code ExpiringHashMap}, linked into a bucket of the
+     * wheel while it is scheduled.
+     */
+    static final class Entry<K, V> extends MapEntry<K, V> {
+        // System.nanoTime based time the entry expires at.
+        long deadline;
+        // Nanoseconds the entry lives for after each write, or each access
+        // too when the map expires after access.
+        long duration;
+        Entry<K, V> prev;
+        Entry<K, V> next;
+
+        /**
+         * Create an unscheduled entry.
+         *
+         * @param key key of the entry
+         * @param value value of the entry
+         * @param hash {@code key.hashCode()}
+         */
+        Entry(K key, V value, int hash) {
+            super(key, value, hash);
+        }
+    }
+
+    private final Entry<K, V>[][] wheel;
+    private long time;
+
+    /**
+     * Create an empty wheel.
+     *
+     * @param now current time in nanoseconds
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long now) {
+        time = now;
+        wheel = (Entry<K, V>[][]) new Entry[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = (Entry<K, V>[]) new Entry[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                Entry<K, V> sentinel = new Entry<>(null, null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Puts an entry in the bucket for its deadline, taking it out of the
+     * bucket it was in first.
+     *
+     * @param entry entry with its deadline set
+     */
+    void schedule(Entry<K, V> entry) {
+        unschedule(entry);
+        Entry<K, V> sentinel = bucketFor(entry.deadline);
+        entry.prev = sentinel.prev;
+        entry.next = sentinel;
+        sentinel.prev.next = entry;
+        sentinel.prev = entry;
+    }
+
+    /**
+     * Takes an entry out of its bucket, if it is in one.
+     *
+     * @param entry entry to take out
+     */
+    void unschedule(Entry<K, V> entry) {
+        if (entry.next != null) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * Gets the bucket an entry with the given deadline belongs in.
+     *
+     * @param deadline time the entry expires at
+     * @return sentinel of the bucket's list
+     */
+    private Entry<K, V> bucketFor(long deadline) {
+        long remaining = deadline - time;
+        for (int i = 0; i < BUCKETS.length - 1; i++) {
+            if (remaining < 1L << SHIFTS[i + 1]) {
+                long ticks = deadline >>> SHIFTS[i];
+                return wheel[i][(int) ticks & (BUCKETS[i] - 1)];
+            }
+        }
+        return wheel[BUCKETS.length - 1][0];
+    }
+
+    /**
+     * Moves the wheel forward to {@code now}, handing every entry that is
+     * due to {@code expired} and moving the rest of each passed bucket down.
+     * Expired entries are unscheduled before they are handed over. Does
+     * nothing if time has not moved forward.
+     *
+     * @param now current time in nanoseconds
+     * @param expired called with each expired entry
+     */
+    void advance(long now, Consumer<Entry<K, V>> expired) {
+        long previous = time;
+        if (now - previous <= 0) {
+            return;
+        }
+        time = now;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            long previousTicks = previous >>> SHIFTS[i];
+            long delta = (now >>> SHIFTS[i]) - previousTicks;
+            if (delta <= 0) {
+                // Coarser levels tick no more often than this one.
+                break;
+            }
+            expire(i, previousTicks, delta, expired);
+        }
+    }
+
+    /**
+     * Empties the buckets of one level from the one time was in up to the
+     * one it is in now, wrapping around at most once.
+     *
+     * @param level level of the wheel
+     * @param previousTicks bucket ticks at the previous time
+     * @param delta number of ticks time has moved by
+     * @param expired called with each expired entry
+     */
+    private void expire(int level, long previousTicks, long delta,
+            Consumer<Entry<K, V>> expired) {
+        Entry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) previousTicks & mask;
+        for (int i = start; i < start + steps; i++) {
+            Entry<K, V> sentinel = buckets[i & mask];
+            Entry<K, V> entry = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (entry != sentinel) {
+                Entry<K, V> next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                if (entry.deadline - time <= 0) {
+                    expired.accept(entry);
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+}